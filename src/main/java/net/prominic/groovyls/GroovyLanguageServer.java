@@ -28,6 +28,9 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
 import org.eclipse.lsp4j.CompletionOptions;
 import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.InitializeResult;
@@ -35,16 +38,21 @@ import org.eclipse.lsp4j.ServerCapabilities;
 import org.eclipse.lsp4j.SignatureHelpOptions;
 import org.eclipse.lsp4j.TextDocumentSyncKind;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
+import org.eclipse.lsp4j.jsonrpc.services.JsonRequest;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.services.LanguageClientAware;
 import org.eclipse.lsp4j.services.LanguageServer;
 import org.eclipse.lsp4j.services.TextDocumentService;
 import org.eclipse.lsp4j.services.WorkspaceService;
 
+import net.prominic.groovyls.compiler.control.ParserCacheMonitor;
+import net.prominic.groovyls.compiler.control.ParserWarmup;
 import net.prominic.groovyls.config.CompilationUnitFactory;
 import net.prominic.groovyls.config.ICompilationUnitFactory;
 
 public class GroovyLanguageServer implements LanguageServer, LanguageClientAware {
+    private static final String PROPERTY_SLL_THRESHOLD = "groovy.antlr4.sll.threshold";
+    private static final String PROPERTY_CACHE_THRESHOLD = "groovy.antlr4.cache.threshold";
 
     public static void main(String[] args) {
         InputStream systemIn = System.in;
@@ -59,6 +67,10 @@ public class GroovyLanguageServer implements LanguageServer, LanguageClientAware
     }
 
     private GroovyServices groovyServices;
+    private ParserWarmup parserWarmup = new ParserWarmup();
+    private ParserCacheMonitor parserCacheMonitor = new ParserCacheMonitor(() -> {
+        new ParserWarmup().start();
+    });
 
     public GroovyLanguageServer() {
         this(new CompilationUnitFactory());
@@ -66,10 +78,15 @@ public class GroovyLanguageServer implements LanguageServer, LanguageClientAware
 
     public GroovyLanguageServer(ICompilationUnitFactory compilationUnitFactory) {
         this.groovyServices = new GroovyServices(compilationUnitFactory);
+        this.groovyServices.setParserCacheMonitor(parserCacheMonitor);
+        this.groovyServices.setClasspathCacheDirectory(
+                Paths.get(System.getProperty("user.home"), ".cache", "groovy-language-server", "classpath"));
     }
 
     @Override
     public CompletableFuture<InitializeResult> initialize(InitializeParams params) {
+        configureParser(params.getInitializationOptions());
+
         String rootUriString = params.getRootUri();
         if (rootUriString != null) {
             URI uri = URI.create(params.getRootUri());
@@ -99,6 +116,8 @@ public class GroovyLanguageServer implements LanguageServer, LanguageClientAware
 
     @Override
     public CompletableFuture<Object> shutdown() {
+        parserWarmup.stop();
+        parserCacheMonitor.shutdown();
         return CompletableFuture.completedFuture(new Object());
     }
 
@@ -107,6 +126,44 @@ public class GroovyLanguageServer implements LanguageServer, LanguageClientAware
         System.exit(0);
     }
 
+    /**
+     * The parser reads its options from system properties only once, so they
+     * must be set before anything is parsed, including the warm-up.
+     */
+    private void configureParser(Object initializationOptions) {
+        JsonObject parser = new JsonObject();
+        if (initializationOptions instanceof JsonObject) {
+            JsonElement parserElement = ((JsonObject) initializationOptions).get("parser");
+            if (parserElement != null && parserElement.isJsonObject()) {
+                parser = parserElement.getAsJsonObject();
+            }
+        }
+        JsonElement sllThreshold = parser.get("sllThreshold");
+        // a system property from the command line takes precedence, and an
+        // option that isn't a number is ignored
+        if (sllThreshold != null && sllThreshold.isJsonPrimitive() && sllThreshold.getAsJsonPrimitive().isNumber()
+                && System.getProperty(PROPERTY_SLL_THRESHOLD) == null) {
+            // files with more tokens skip SLL prediction and go straight to
+            // full LL prediction. -1 tries SLL first for every file.
+            System.setProperty(PROPERTY_SLL_THRESHOLD, Integer.toString(sllThreshold.getAsInt()));
+        }
+        if (System.getProperty(PROPERTY_CACHE_THRESHOLD) == null) {
+            // by default, the parser clears its caches after every 64 parses.
+            // the monitor clears them only when they grow too large instead.
+            System.setProperty(PROPERTY_CACHE_THRESHOLD, "0");
+        }
+        parserCacheMonitor.start();
+        JsonElement warmup = parser.get("warmup");
+        if (warmup == null || !warmup.isJsonPrimitive() || warmup.getAsBoolean()) {
+            parserWarmup.start();
+        }
+    }
+
+    @JsonRequest("groovy/parserCacheStatistics")
+    public CompletableFuture<ParserCacheMonitor.Statistics> parserCacheStatistics() {
+        return CompletableFuture.completedFuture(parserCacheMonitor.getStatistics());
+    }
+
     @Override
     public TextDocumentService getTextDocumentService() {
         return groovyServices;
@@ -19,20 +19,20 @@
 ////////////////////////////////////////////////////////////////////////////////
 package net.prominic.groovyls;
 
-import java.io.File;
-import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -43,8 +43,10 @@ import com.google.gson.JsonObject;
 import org.codehaus.groovy.GroovyBugError;
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
 import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.control.messages.Message;
 import org.codehaus.groovy.control.messages.SyntaxErrorMessage;
 import org.codehaus.groovy.syntax.SyntaxException;
@@ -53,7 +55,6 @@ import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.CompletionParams;
 import org.eclipse.lsp4j.DefinitionParams;
 import org.eclipse.lsp4j.Diagnostic;
-import org.eclipse.lsp4j.DiagnosticSeverity;
 import org.eclipse.lsp4j.DidChangeConfigurationParams;
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidChangeWatchedFilesParams;
@@ -68,18 +69,16 @@ import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.LocationLink;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
-import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.ReferenceParams;
 import org.eclipse.lsp4j.RenameParams;
 import org.eclipse.lsp4j.SignatureHelp;
 import org.eclipse.lsp4j.SignatureHelpParams;
 import org.eclipse.lsp4j.SymbolInformation;
-import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.TypeDefinitionParams;
-import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
 import org.eclipse.lsp4j.WorkspaceEdit;
 import org.eclipse.lsp4j.WorkspaceSymbolParams;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.services.LanguageClientAware;
@@ -87,11 +86,16 @@ import org.eclipse.lsp4j.services.TextDocumentService;
 import org.eclipse.lsp4j.services.WorkspaceService;
 
 import groovy.lang.GroovyClassLoader;
-import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ClassGraphException;
-import io.github.classgraph.ScanResult;
 import net.prominic.groovyls.compiler.ast.ASTNodeVisitor;
+import net.prominic.groovyls.compiler.classpath.AsyncClasspathScanner;
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex;
+import net.prominic.groovyls.compiler.classpath.ClasspathScanCache;
+import net.prominic.groovyls.compiler.control.CompileScheduler;
 import net.prominic.groovyls.compiler.control.GroovyLSCompilationUnit;
+import net.prominic.groovyls.compiler.control.MethodBodySplicer;
+import net.prominic.groovyls.compiler.control.ParserCacheMonitor;
+import net.prominic.groovyls.compiler.control.SourceDependencyGraph;
+import net.prominic.groovyls.compiler.control.SyntaxChecker;
 import net.prominic.groovyls.config.ICompilationUnitFactory;
 import net.prominic.groovyls.providers.CompletionProvider;
 import net.prominic.groovyls.providers.DefinitionProvider;
@@ -104,10 +108,18 @@ import net.prominic.groovyls.providers.TypeDefinitionProvider;
 import net.prominic.groovyls.providers.WorkspaceSymbolProvider;
 import net.prominic.groovyls.util.FileContentsTracker;
 import net.prominic.groovyls.util.GroovyLanguageServerUtils;
-import net.prominic.lsp.utils.Positions;
 
 public class GroovyServices implements TextDocumentService, WorkspaceService, LanguageClientAware {
 	private static final Pattern PATTERN_CONSTRUCTOR_CALL = Pattern.compile(".*new \\w*$");
+	private static final CancelChecker NOT_CANCELABLE = () -> {
+	};
+	private static final Map<String, String> COMPILER_OPTION_SETTINGS = new HashMap<>();
+
+	static {
+		// groovy.compiler.* settings that map to optimization options
+		COMPILER_OPTION_SETTINGS.put("parallelParse", CompilerConfiguration.PARALLEL_PARSE);
+		COMPILER_OPTION_SETTINGS.put("groovydoc", CompilerConfiguration.GROOVYDOC);
+	}
 
 	private LanguageClient languageClient;
 
@@ -117,17 +129,52 @@ public class GroovyServices implements TextDocumentService, WorkspaceService, La
 	private ASTNodeVisitor astVisitor;
 	private Map<URI, List<Diagnostic>> prevDiagnosticsByFile;
 	private FileContentsTracker fileContentsTracker = new FileContentsTracker();
-	private ScanResult classGraphScanResult = null;
+	private AsyncClasspathScanner classpathScanner = new AsyncClasspathScanner(new ClasspathScanCache(null));
 	private GroovyClassLoader classLoader = null;
-	private URI previousContext = null;
+	private SourceDependencyGraph dependencyGraph = new SourceDependencyGraph();
+	private CompileScheduler compileScheduler = new CompileScheduler(this::compileAndVisitAST);
+	private SyntaxChecker syntaxChecker = new SyntaxChecker(this::getOpenContents, this::publishSyntaxDiagnostics);
+	private Set<URI> syntaxDiagnosticURIs = ConcurrentHashMap.newKeySet();
+	// the compile thread and the syntax checker thread both publish
+	// diagnostics, and a check of pending changes must not be separated from
+	// the publish that depends on it
+	private final Object diagnosticsLock = new Object();
+	private ParserCacheMonitor parserCacheMonitor;
 
 	public GroovyServices(ICompilationUnitFactory factory) {
 		compilationUnitFactory = factory;
 	}
 
+	/**
+	 * Sets the directory where classpath scan results are saved, so that
+	 * they may be reused after a restart.
+	 */
+	public void setClasspathCacheDirectory(Path cacheDirectory) {
+		compileScheduler.execute(() -> {
+			classpathScanner.shutdown();
+			classpathScanner = new AsyncClasspathScanner(new ClasspathScanCache(cacheDirectory));
+			classLoader = null;
+		}).join();
+	}
+
+	/**
+	 * Blocks until the classpath has been scanned.
+	 */
+	void waitForClasspathScan() {
+		compileScheduler.execute(() -> {
+		}).join();
+		classpathScanner.waitForScan();
+	}
+
+	public void setParserCacheMonitor(ParserCacheMonitor parserCacheMonitor) {
+		this.parserCacheMonitor = parserCacheMonitor;
+	}
+
 	public void setWorkspaceRoot(Path workspaceRoot) {
-		this.workspaceRoot = workspaceRoot;
-		createOrUpdateCompilationUnit();
+		compileScheduler.execute(() -> {
+			this.workspaceRoot = workspaceRoot;
+			createOrUpdateCompilationUnit();
+		}).join();
 	}
 
 	@Override
@@ -141,21 +188,23 @@ public class GroovyServices implements TextDocumentService, WorkspaceService, La
 	public void didOpen(DidOpenTextDocumentParams params) {
 		fileContentsTracker.didOpen(params);
 		URI uri = URI.create(params.getTextDocument().getUri());
-		compileAndVisitAST(uri);
+		compileScheduler.schedule(uri);
+		syntaxChecker.check(uri);
 	}
 
 	@Override
 	public void didChange(DidChangeTextDocumentParams params) {
 		fileContentsTracker.didChange(params);
 		URI uri = URI.create(params.getTextDocument().getUri());
-		compileAndVisitAST(uri);
+		compileScheduler.schedule(uri);
+		syntaxChecker.check(uri);
 	}
 
 	@Override
 	public void didClose(DidCloseTextDocumentParams params) {
 		fileContentsTracker.didClose(params);
 		URI uri = URI.create(params.getTextDocument().getUri());
-		compileAndVisitAST(uri);
+		compileScheduler.schedule(uri);
 	}
 
 	@Override
@@ -165,15 +214,14 @@ public class GroovyServices implements TextDocumentService, WorkspaceService, La
 
 	@Override
 	public void didChangeWatchedFiles(DidChangeWatchedFilesParams params) {
-		boolean isSameUnit = createOrUpdateCompilationUnit();
-		Set<URI> urisWithChanges = params.getChanges().stream().map(fileEvent -> URI.create(fileEvent.getUri()))
-				.collect(Collectors.toSet());
-		compile();
-		if (isSameUnit) {
-			visitAST(urisWithChanges);
-		} else {
-			visitAST();
-		}
+		compileScheduler.execute(() -> {
+			Set<URI> urisWithChanges = params.getChanges().stream().map(fileEvent -> URI.create(fileEvent.getUri()))
+					.collect(Collectors.toSet());
+			compilationUnitFactory.updateWorkspaceFiles(urisWithChanges);
+			// files that changed on disk need to be removed from the
+			// compilation unit, and added again if they still exist
+			compileAndVisitAST(urisWithChanges, NOT_CANCELABLE);
+		});
 	}
 
 	@Override
@@ -182,11 +230,39 @@ public class GroovyServices implements TextDocumentService, WorkspaceService, La
 			return;
 		}
 		JsonObject settings = (JsonObject) params.getSettings();
-		this.updateClasspath(settings);
+		this.updateCompilerSettings(settings);
+		this.updateParserCacheSettings(settings);
 	}
 
-	private void updateClasspath(JsonObject settings) {
+	private void updateParserCacheSettings(JsonObject settings) {
+		if (parserCacheMonitor == null) {
+			return;
+		}
+		int maxSize = ParserCacheMonitor.DEFAULT_MAX_SIZE;
+		boolean rewarm = true;
+		if (settings.has("groovy") && settings.get("groovy").isJsonObject()) {
+			JsonObject groovy = settings.get("groovy").getAsJsonObject();
+			if (groovy.has("parser") && groovy.get("parser").isJsonObject()) {
+				JsonObject parser = groovy.get("parser").getAsJsonObject();
+				if (parser.has("cache") && parser.get("cache").isJsonObject()) {
+					JsonObject cache = parser.get("cache").getAsJsonObject();
+					if (cache.has("maxSize") && cache.get("maxSize").isJsonPrimitive()
+							&& cache.get("maxSize").getAsJsonPrimitive().isNumber()) {
+						maxSize = cache.get("maxSize").getAsInt();
+					}
+					if (cache.has("rewarm") && cache.get("rewarm").isJsonPrimitive()) {
+						rewarm = cache.get("rewarm").getAsBoolean();
+					}
+				}
+			}
+		}
+		parserCacheMonitor.setMaxSize(maxSize);
+		parserCacheMonitor.setRewarmEnabled(rewarm);
+	}
+
+	private void updateCompilerSettings(JsonObject settings) {
 		List<String> classpathList = new ArrayList<>();
+		Map<String, Boolean> optimizationOptions = new HashMap<>();
 
 		if (settings.has("groovy") && settings.get("groovy").isJsonObject()) {
 			JsonObject groovy = settings.get("groovy").getAsJsonObject();
@@ -196,268 +272,339 @@ public class GroovyServices implements TextDocumentService, WorkspaceService, La
 					classpathList.add(element.getAsString());
 				});
 			}
+			if (groovy.has("compiler") && groovy.get("compiler").isJsonObject()) {
+				JsonObject compiler = groovy.get("compiler").getAsJsonObject();
+				COMPILER_OPTION_SETTINGS.forEach((name, option) -> {
+					if (compiler.has(name) && compiler.get(name).isJsonPrimitive()) {
+						optimizationOptions.put(option, compiler.get(name).getAsBoolean());
+					}
+				});
+			}
 		}
 
-		if (!classpathList.equals(compilationUnitFactory.getAdditionalClasspathList())) {
-			compilationUnitFactory.setAdditionalClasspathList(classpathList);
-
-			createOrUpdateCompilationUnit();
-			compile();
-			visitAST();
-			previousContext = null;
-		}
+		compileScheduler.execute(() -> {
+			boolean changed = false;
+			if (!classpathList.equals(compilationUnitFactory.getAdditionalClasspathList())) {
+				compilationUnitFactory.setAdditionalClasspathList(classpathList);
+				changed = true;
+			}
+			if (!optimizationOptions.equals(compilationUnitFactory.getOptimizationOptions())) {
+				compilationUnitFactory.setOptimizationOptions(optimizationOptions);
+				changed = true;
+			}
+			if (changed) {
+				compileAndVisitAST(Collections.emptySet(), NOT_CANCELABLE);
+			}
+		});
 	}
 
 	// --- REQUESTS
 
 	@Override
 	public CompletableFuture<Hover> hover(HoverParams params) {
-		URI uri = URI.create(params.getTextDocument().getUri());
-		recompileIfContextChanged(uri);
-
-		HoverProvider provider = new HoverProvider(astVisitor);
-		return provider.provideHover(params.getTextDocument(), params.getPosition());
+		return compileScheduler.request(() -> {
+			HoverProvider provider = new HoverProvider(astVisitor);
+			return provider.provideHover(params.getTextDocument(), params.getPosition());
+		});
 	}
 
 	@Override
 	public CompletableFuture<Either<List<CompletionItem>, CompletionList>> completion(CompletionParams params) {
-		TextDocumentIdentifier textDocument = params.getTextDocument();
-		Position position = params.getPosition();
-		URI uri = URI.create(textDocument.getUri());
-
-		recompileIfContextChanged(uri);
-
-		String originalSource = null;
-		ASTNode offsetNode = astVisitor.getNodeAtLineAndColumn(uri, position.getLine(), position.getCharacter());
-		if (offsetNode == null) {
-			originalSource = fileContentsTracker.getContents(uri);
-			VersionedTextDocumentIdentifier versionedTextDocument = new VersionedTextDocumentIdentifier(
-					textDocument.getUri(), 1);
-			int offset = Positions.getOffset(originalSource, position);
-			String lineBeforeOffset = originalSource.substring(offset - position.getCharacter(), offset);
-			Matcher matcher = PATTERN_CONSTRUCTOR_CALL.matcher(lineBeforeOffset);
-			TextDocumentContentChangeEvent changeEvent = null;
-			if (matcher.matches()) {
-				changeEvent = new TextDocumentContentChangeEvent(new Range(position, position), 0, "a()");
-			} else {
-				changeEvent = new TextDocumentContentChangeEvent(new Range(position, position), 0, "a");
+		return compileScheduler.request(() -> {
+			TextDocumentIdentifier textDocument = params.getTextDocument();
+			Position position = params.getPosition();
+			URI uri = URI.create(textDocument.getUri());
+
+			ASTNodeVisitor visitor = astVisitor;
+			ASTNode offsetNode = visitor.getNodeAtLineAndColumn(uri, position.getLine(), position.getCharacter());
+			if (offsetNode == null) {
+				String originalSource = fileContentsTracker.getContents(uri);
+				int offset = fileContentsTracker.getLineOffsets(uri).getOffset(position);
+				String lineBeforeOffset = originalSource.substring(offset - position.getCharacter(), offset);
+				Matcher matcher = PATTERN_CONSTRUCTOR_CALL.matcher(lineBeforeOffset);
+				String placeholder = matcher.matches() ? "a()" : "a";
+				// if the offset node is null, there is probably a syntax error.
+				// a completion request is usually triggered by the . character, and
+				// if there is no property name after the dot, it will cause a syntax
+				// error.
+				// this hack adds a placeholder property name in the hopes that it
+				// will correctly create a PropertyExpression to use for completion.
+				// the placeholder is compiled in a scratch compilation unit, so the
+				// original text and AST are never modified.
+				visitor = compileAndVisitScratchAST(uri, insertText(originalSource, offset, placeholder));
 			}
-			DidChangeTextDocumentParams didChangeParams = new DidChangeTextDocumentParams(versionedTextDocument,
-					Collections.singletonList(changeEvent));
-			// if the offset node is null, there is probably a syntax error.
-			// a completion request is usually triggered by the . character, and
-			// if there is no property name after the dot, it will cause a syntax
-			// error.
-			// this hack adds a placeholder property name in the hopes that it
-			// will correctly create a PropertyExpression to use for completion.
-			// we'll restore the original text after we're done handling the
-			// completion request.
-			didChange(didChangeParams);
-		}
-
-		CompletableFuture<Either<List<CompletionItem>, CompletionList>> result = null;
-		try {
-			CompletionProvider provider = new CompletionProvider(astVisitor, classGraphScanResult);
-			result = provider.provideCompletion(params.getTextDocument(), params.getPosition(), params.getContext());
-		} finally {
-			if (originalSource != null) {
-				VersionedTextDocumentIdentifier versionedTextDocument = new VersionedTextDocumentIdentifier(
-						textDocument.getUri(), 1);
-				TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent(null, 0,
-						originalSource);
-				DidChangeTextDocumentParams didChangeParams = new DidChangeTextDocumentParams(versionedTextDocument,
-						Collections.singletonList(changeEvent));
-				didChange(didChangeParams);
-			}
-		}
 
-		return result;
+			// check for a pending scan first, in case it finishes in between
+			boolean classpathScanPending = classpathScanner.isPending();
+			ClasspathIndex classpathIndex = classpathScanner.getIndex();
+			CompletionProvider provider = new CompletionProvider(visitor, classpathIndex, classpathScanPending);
+			return provider.provideCompletion(params.getTextDocument(), params.getPosition(), params.getContext());
+		});
 	}
 
 	@Override
 	public CompletableFuture<Either<List<? extends Location>, List<? extends LocationLink>>> definition(
 			DefinitionParams params) {
-		URI uri = URI.create(params.getTextDocument().getUri());
-		recompileIfContextChanged(uri);
-
-		DefinitionProvider provider = new DefinitionProvider(astVisitor);
-		return provider.provideDefinition(params.getTextDocument(), params.getPosition());
+		return compileScheduler.request(() -> {
+			DefinitionProvider provider = new DefinitionProvider(astVisitor);
+			return provider.provideDefinition(params.getTextDocument(), params.getPosition());
+		});
 	}
 
 	@Override
 	public CompletableFuture<SignatureHelp> signatureHelp(SignatureHelpParams params) {
-		TextDocumentIdentifier textDocument = params.getTextDocument();
-		Position position = params.getPosition();
-		URI uri = URI.create(textDocument.getUri());
-
-		recompileIfContextChanged(uri);
-
-		String originalSource = null;
-		ASTNode offsetNode = astVisitor.getNodeAtLineAndColumn(uri, position.getLine(), position.getCharacter());
-		if (offsetNode == null) {
-			originalSource = fileContentsTracker.getContents(uri);
-			VersionedTextDocumentIdentifier versionedTextDocument = new VersionedTextDocumentIdentifier(
-					textDocument.getUri(), 1);
-			TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent(
-					new Range(position, position), 0, ")");
-			DidChangeTextDocumentParams didChangeParams = new DidChangeTextDocumentParams(versionedTextDocument,
-					Collections.singletonList(changeEvent));
-			// if the offset node is null, there is probably a syntax error.
-			// a signature help request is usually triggered by the ( character,
-			// and if there is no matching ), it will cause a syntax error.
-			// this hack adds a placeholder ) character in the hopes that it
-			// will correctly create a ArgumentListExpression to use for
-			// signature help.
-			// we'll restore the original text after we're done handling the
-			// signature help request.
-			didChange(didChangeParams);
-		}
+		return compileScheduler.request(() -> {
+			TextDocumentIdentifier textDocument = params.getTextDocument();
+			Position position = params.getPosition();
+			URI uri = URI.create(textDocument.getUri());
+
+			ASTNodeVisitor visitor = astVisitor;
+			ASTNode offsetNode = visitor.getNodeAtLineAndColumn(uri, position.getLine(), position.getCharacter());
+			if (offsetNode == null) {
+				String originalSource = fileContentsTracker.getContents(uri);
+				int offset = fileContentsTracker.getLineOffsets(uri).getOffset(position);
+				// if the offset node is null, there is probably a syntax error.
+				// a signature help request is usually triggered by the ( character,
+				// and if there is no matching ), it will cause a syntax error.
+				// this hack adds a placeholder ) character in the hopes that it
+				// will correctly create a ArgumentListExpression to use for
+				// signature help.
+				// the placeholder is compiled in a scratch compilation unit, so the
+				// original text and AST are never modified.
+				visitor = compileAndVisitScratchAST(uri, insertText(originalSource, offset, ")"));
+			}
 
-		try {
-			SignatureHelpProvider provider = new SignatureHelpProvider(astVisitor);
+			SignatureHelpProvider provider = new SignatureHelpProvider(visitor);
 			return provider.provideSignatureHelp(params.getTextDocument(), params.getPosition());
-		} finally {
-			if (originalSource != null) {
-				VersionedTextDocumentIdentifier versionedTextDocument = new VersionedTextDocumentIdentifier(
-						textDocument.getUri(), 1);
-				TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent(null, 0,
-						originalSource);
-				DidChangeTextDocumentParams didChangeParams = new DidChangeTextDocumentParams(versionedTextDocument,
-						Collections.singletonList(changeEvent));
-				didChange(didChangeParams);
-			}
-		}
+		});
 	}
 
 	@Override
 	public CompletableFuture<Either<List<? extends Location>, List<? extends LocationLink>>> typeDefinition(
 			TypeDefinitionParams params) {
-		URI uri = URI.create(params.getTextDocument().getUri());
-		recompileIfContextChanged(uri);
-
-		TypeDefinitionProvider provider = new TypeDefinitionProvider(astVisitor);
-		return provider.provideTypeDefinition(params.getTextDocument(), params.getPosition());
+		return compileScheduler.request(() -> {
+			TypeDefinitionProvider provider = new TypeDefinitionProvider(astVisitor);
+			return provider.provideTypeDefinition(params.getTextDocument(), params.getPosition());
+		});
 	}
 
 	@Override
 	public CompletableFuture<List<? extends Location>> references(ReferenceParams params) {
-		URI uri = URI.create(params.getTextDocument().getUri());
-		recompileIfContextChanged(uri);
-
-		ReferenceProvider provider = new ReferenceProvider(astVisitor);
-		return provider.provideReferences(params.getTextDocument(), params.getPosition());
+		return compileScheduler.request(() -> {
+			ReferenceProvider provider = new ReferenceProvider(astVisitor);
+			return provider.provideReferences(params.getTextDocument(), params.getPosition());
+		});
 	}
 
 	@Override
 	public CompletableFuture<List<Either<SymbolInformation, DocumentSymbol>>> documentSymbol(
 			DocumentSymbolParams params) {
-		URI uri = URI.create(params.getTextDocument().getUri());
-		recompileIfContextChanged(uri);
-
-		DocumentSymbolProvider provider = new DocumentSymbolProvider(astVisitor);
-		return provider.provideDocumentSymbols(params.getTextDocument());
+		return compileScheduler.request(() -> {
+			DocumentSymbolProvider provider = new DocumentSymbolProvider(astVisitor);
+			return provider.provideDocumentSymbols(params.getTextDocument());
+		});
 	}
 
 	@Override
 	public CompletableFuture<List<? extends SymbolInformation>> symbol(WorkspaceSymbolParams params) {
-		WorkspaceSymbolProvider provider = new WorkspaceSymbolProvider(astVisitor);
-		return provider.provideWorkspaceSymbols(params.getQuery());
+		return compileScheduler.request(() -> {
+			WorkspaceSymbolProvider provider = new WorkspaceSymbolProvider(astVisitor);
+			return provider.provideWorkspaceSymbols(params.getQuery());
+		});
 	}
 
 	@Override
 	public CompletableFuture<WorkspaceEdit> rename(RenameParams params) {
-		URI uri = URI.create(params.getTextDocument().getUri());
-		recompileIfContextChanged(uri);
-
-		RenameProvider provider = new RenameProvider(astVisitor, fileContentsTracker);
-		return provider.provideRename(params);
+		return compileScheduler.request(() -> {
+			RenameProvider provider = new RenameProvider(astVisitor, fileContentsTracker);
+			return provider.provideRename(params);
+		});
 	}
 
 	// --- INTERNAL
 
-	private void visitAST() {
+	private void visitAST(CancelChecker cancelChecker) {
+		astVisitor = null;
 		if (compilationUnit == null) {
 			return;
 		}
-		astVisitor = new ASTNodeVisitor();
-		astVisitor.visitCompilationUnit(compilationUnit);
+		ASTNodeVisitor newVisitor = new ASTNodeVisitor();
+		newVisitor.setCancelChecker(cancelChecker);
+		newVisitor.visitCompilationUnit(compilationUnit);
+		newVisitor.setCancelChecker(null);
+		// if the visit is canceled, the incomplete visitor is not kept
+		astVisitor = newVisitor;
 	}
 
-	private void visitAST(Set<URI> uris) {
+	private void visitAST(Set<URI> uris, CancelChecker cancelChecker) {
 		if (astVisitor == null) {
-			visitAST();
+			visitAST(cancelChecker);
 			return;
 		}
 		if (compilationUnit == null) {
 			return;
 		}
-		astVisitor.visitCompilationUnit(compilationUnit, uris);
+		astVisitor.setCancelChecker(cancelChecker);
+		try {
+			astVisitor.visitCompilationUnit(compilationUnit, uris);
+		} finally {
+			astVisitor.setCancelChecker(null);
+		}
 	}
 
 	private boolean createOrUpdateCompilationUnit() {
-		if (compilationUnit != null) {
-			File targetDirectory = compilationUnit.getConfiguration().getTargetDirectory();
-			if (targetDirectory != null && targetDirectory.exists()) {
-				try {
-					Files.walk(targetDirectory.toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile)
-							.forEach(File::delete);
-				} catch (IOException e) {
-					System.err.println("Failed to delete target directory: " + targetDirectory.getAbsolutePath());
-					compilationUnit = null;
-					return false;
-				}
-			}
-		}
-
+		// compiling stops before class generation, so there is never any
+		// output in the target directory to clean up
 		GroovyLSCompilationUnit oldCompilationUnit = compilationUnit;
 		compilationUnit = compilationUnitFactory.create(workspaceRoot, fileContentsTracker);
 		fileContentsTracker.resetChangedFiles();
 
 		if (compilationUnit != null) {
-			File targetDirectory = compilationUnit.getConfiguration().getTargetDirectory();
-			if (targetDirectory != null && !targetDirectory.exists() && !targetDirectory.mkdirs()) {
-				System.err.println("Failed to create target directory: " + targetDirectory.getAbsolutePath());
-			}
 			GroovyClassLoader newClassLoader = compilationUnit.getClassLoader();
+			syntaxChecker.setCompilerConfiguration(compilationUnit.getConfiguration(), newClassLoader);
 			if (!newClassLoader.equals(classLoader)) {
 				classLoader = newClassLoader;
 
-				try {
-					classGraphScanResult = new ClassGraph().overrideClassLoaders(classLoader).enableClassInfo()
-							.enableSystemJarsAndModules()
-							.scan();
-				} catch (ClassGraphException e) {
-					classGraphScanResult = null;
-				}
+				// until the scan finishes in the background, completion
+				// returns incomplete results without the classpath
+				classpathScanner.scan(compilationUnit.getConfiguration().getClasspath());
 			}
 		} else {
-			classGraphScanResult = null;
+			classpathScanner.clear();
 		}
 
 		return compilationUnit != null && compilationUnit.equals(oldCompilationUnit);
 	}
 
-	protected void recompileIfContextChanged(URI newContext) {
-		if (previousContext == null || previousContext.equals(newContext)) {
-			return;
+	private String insertText(String source, int offset, String text) {
+		if (offset < 0 || offset > source.length()) {
+			return source;
+		}
+		return source.substring(0, offset) + text + source.substring(offset);
+	}
+
+	/**
+	 * Compiles different contents for a single file without modifying the
+	 * compilation unit, the AST, or the file contents tracker. The returned
+	 * visitor contains the new AST for the file, and the existing AST for
+	 * every other file.
+	 */
+	private ASTNodeVisitor compileAndVisitScratchAST(URI uri, String contents) {
+		if (compilationUnit == null) {
+			return astVisitor;
+		}
+		GroovyLSCompilationUnit scratchUnit = compilationUnit.createScratchCompilationUnit(uri, contents);
+		try {
+			scratchUnit.compile(Phases.CANONICALIZATION);
+		} catch (CompilationFailedException e) {
+			// ignore
+		} catch (GroovyBugError e) {
+			System.err.println("Unexpected exception in language server when compiling Groovy.");
+			e.printStackTrace(System.err);
+		} catch (Exception e) {
+			System.err.println("Unexpected exception in language server when compiling Groovy.");
+			e.printStackTrace(System.err);
 		}
-		fileContentsTracker.forceChanged(newContext);
-		compileAndVisitAST(newContext);
+		ASTNodeVisitor scratchVisitor = new ASTNodeVisitor(astVisitor);
+		scratchVisitor.visitCompilationUnit(scratchUnit);
+		return scratchVisitor;
 	}
 
-	private void compileAndVisitAST(URI contextURI) {
-		Set<URI> uris = Collections.singleton(contextURI);
+	private void compileAndVisitAST(Set<URI> scheduledURIs, CancelChecker cancelChecker) {
+		if (parserCacheMonitor != null) {
+			parserCacheMonitor.markActive();
+		}
+		for (URI uri : scheduledURIs) {
+			// the tracker may have been reset by an earlier compile that ran
+			// while this change was pending
+			fileContentsTracker.forceChanged(uri);
+		}
+		Set<URI> uris = fileContentsTracker.getChangedURIs();
+		if (uris.size() == 1 && spliceMethodCode(uris.iterator().next())) {
+			fileContentsTracker.resetChangedFiles();
+			publishDiagnostics();
+			return;
+		}
 		boolean isSameUnit = createOrUpdateCompilationUnit();
-		compile();
-		if (isSameUnit) {
-			visitAST(uris);
-		} else {
-			visitAST();
+		if (!isSameUnit) {
+			// the old AST can't be updated from a new compilation unit, so
+			// it must not be kept if this compile is canceled before the visit
+			astVisitor = null;
+		}
+		try {
+			compile(Phases.CONVERSION, cancelChecker);
+			if (compilationUnit != null) {
+				Set<URI> dependencyURIs = uris;
+				if (!isSameUnit || astVisitor == null) {
+					// the first compile of a compilation unit records every
+					// file, including the files that were never opened
+					dependencyGraph.clear();
+					dependencyURIs = getSourceURIs();
+				}
+				// if the API of a changed file is different, the files that
+				// depend on it need to be resolved again
+				Set<URI> dependentURIs = dependencyGraph.updateAPI(compilationUnit, dependencyURIs);
+				if (isSameUnit && !dependentURIs.isEmpty()) {
+					dependentURIs.forEach(fileContentsTracker::forceChanged);
+					uris.addAll(dependentURIs);
+					createOrUpdateCompilationUnit();
+				}
+				compile(Phases.CANONICALIZATION, cancelChecker);
+				dependencyGraph.updateDependencies(compilationUnit, dependencyURIs);
+			}
+			publishDiagnostics();
+			if (isSameUnit) {
+				visitAST(uris, cancelChecker);
+			} else {
+				visitAST(cancelChecker);
+			}
+		} catch (CancellationException e) {
+			// the tracker was reset, so these URIs need to be marked again to
+			// be compiled and visited with the newer changes
+			uris.forEach(fileContentsTracker::forceChanged);
+			if (!isSameUnit) {
+				// the dependencies of every file are recorded only when a new
+				// compilation unit is compiled, so start over. the class loader
+				// is kept so that the classpath doesn't need to be scanned again.
+				compilationUnitFactory.resetCompilationUnit();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * If an edit is contained in the body of a single method, only that body
+	 * is parsed, analyzed, and visited again.
+	 */
+	private boolean spliceMethodCode(URI uri) {
+		if (compilationUnit == null || astVisitor == null || !fileContentsTracker.isOpen(uri)) {
+			return false;
+		}
+		SourceUnit sourceUnit = null;
+		Iterator<SourceUnit> sourceUnits = compilationUnit.iterator();
+		while (sourceUnits.hasNext()) {
+			SourceUnit current = sourceUnits.next();
+			if (uri.equals(current.getSource().getURI())) {
+				sourceUnit = current;
+				break;
+			}
 		}
-		previousContext = contextURI;
+		if (sourceUnit == null) {
+			return false;
+		}
+		String contents = fileContentsTracker.getContents(uri);
+		MethodBodySplicer.Splice splice = new MethodBodySplicer(compilationUnit).splice(sourceUnit, contents);
+		if (splice == null) {
+			return false;
+		}
+		if (!astVisitor.visitMethodCode(sourceUnit, splice.getMethod(), splice.getOldCode())) {
+			astVisitor.visitCompilationUnit(compilationUnit, Collections.singleton(uri));
+		}
+		dependencyGraph.updateDependencies(compilationUnit, Collections.singleton(uri));
+		return true;
 	}
 
-	private void compile() {
+	private void compile(int throughPhase, CancelChecker cancelChecker) {
 		if (compilationUnit == null) {
 			return;
 		}
@@ -465,9 +612,17 @@ public class GroovyServices implements TextDocumentService, WorkspaceService, La
 			// AST is completely built after the canonicalization phase
 			// for code intelligence, we shouldn't need to go further
 			// http://groovy-lang.org/metaprogramming.html#_compilation_phases_guide
-			compilationUnit.compile(Phases.CANONICALIZATION);
+			// each phase is compiled separately so that a canceled compile
+			// stops between phases, when every source unit has completed the
+			// previous phase, and a later compile can continue from there
+			for (int phase = Phases.INITIALIZATION; phase <= throughPhase; phase++) {
+				cancelChecker.checkCanceled();
+				compilationUnit.compile(phase);
+			}
 		} catch (CompilationFailedException e) {
 			// ignore
+		} catch (CancellationException e) {
+			throw e;
 		} catch (GroovyBugError e) {
 			System.err.println("Unexpected exception in language server when compiling Groovy.");
 			e.printStackTrace(System.err);
@@ -475,8 +630,31 @@ public class GroovyServices implements TextDocumentService, WorkspaceService, La
 			System.err.println("Unexpected exception in language server when compiling Groovy.");
 			e.printStackTrace(System.err);
 		}
-		Set<PublishDiagnosticsParams> diagnostics = handleErrorCollector(compilationUnit.getErrorCollector());
-		diagnostics.stream().forEach(languageClient::publishDiagnostics);
+	}
+
+	private String getOpenContents(URI uri) {
+		if (!fileContentsTracker.isOpen(uri)) {
+			return null;
+		}
+		return fileContentsTracker.getContents(uri);
+	}
+
+	private Set<URI> getSourceURIs() {
+		Set<URI> result = new HashSet<>();
+		compilationUnit.iterator().forEachRemaining(sourceUnit -> {
+			result.add(sourceUnit.getSource().getURI());
+		});
+		return result;
+	}
+
+	private void publishDiagnostics() {
+		if (compilationUnit == null) {
+			return;
+		}
+		synchronized (diagnosticsLock) {
+			Set<PublishDiagnosticsParams> diagnostics = handleErrorCollector(compilationUnit.getErrorCollector());
+			diagnostics.stream().forEach(languageClient::publishDiagnostics);
+		}
 	}
 
 	private Set<PublishDiagnosticsParams> handleErrorCollector(ErrorCollector collector) {
@@ -488,35 +666,75 @@ public class GroovyServices implements TextDocumentService, WorkspaceService, La
 					.forEach((Object message) -> {
 						SyntaxErrorMessage syntaxErrorMessage = (SyntaxErrorMessage) message;
 						SyntaxException cause = syntaxErrorMessage.getCause();
-						Range range = GroovyLanguageServerUtils.syntaxExceptionToRange(cause);
-						if (range == null) {
-							// range can't be null in a Diagnostic, so we need
-							// a fallback
-							range = new Range(new Position(0, 0), new Position(0, 0));
-						}
-						Diagnostic diagnostic = new Diagnostic();
-						diagnostic.setRange(range);
-						diagnostic.setSeverity(cause.isFatal() ? DiagnosticSeverity.Error : DiagnosticSeverity.Warning);
-						diagnostic.setMessage(cause.getMessage());
+						Diagnostic diagnostic = GroovyLanguageServerUtils.syntaxExceptionToDiagnostic(cause);
 						URI uri = Paths.get(cause.getSourceLocator()).toUri();
 						diagnosticsByFile.computeIfAbsent(uri, (key) -> new ArrayList<>()).add(diagnostic);
 					});
 		}
 
-		Set<PublishDiagnosticsParams> result = diagnosticsByFile.entrySet().stream()
-				.map(entry -> new PublishDiagnosticsParams(entry.getKey().toString(), entry.getValue()))
-				.collect(Collectors.toSet());
+		// files that changed again after this compile started may already
+		// have syntax diagnostics for the newer contents, so this compile's
+		// diagnostics are skipped, and the next compile will replace them
+		Set<PublishDiagnosticsParams> result = new HashSet<>();
+		Map<URI, List<Diagnostic>> publishedDiagnosticsByFile = new HashMap<>();
+		diagnosticsByFile.forEach((uri, diagnostics) -> {
+			if (compileScheduler.isPending(uri)) {
+				return;
+			}
+			result.add(new PublishDiagnosticsParams(uri.toString(), diagnostics));
+			publishedDiagnosticsByFile.put(uri, diagnostics);
+		});
 
 		if (prevDiagnosticsByFile != null) {
-			for (URI key : prevDiagnosticsByFile.keySet()) {
-				if (!diagnosticsByFile.containsKey(key)) {
+			prevDiagnosticsByFile.forEach((uri, diagnostics) -> {
+				if (compileScheduler.isPending(uri)) {
+					// the client still has these diagnostics
+					publishedDiagnosticsByFile.put(uri, diagnostics);
+				} else if (!diagnosticsByFile.containsKey(uri)) {
 					// send an empty list of diagnostics for files that had
 					// diagnostics previously or they won't be cleared
-					result.add(new PublishDiagnosticsParams(key.toString(), new ArrayList<>()));
+					result.add(new PublishDiagnosticsParams(uri.toString(), new ArrayList<>()));
 				}
+			});
+		}
+		Iterator<URI> syntaxDiagnosticIterator = syntaxDiagnosticURIs.iterator();
+		while (syntaxDiagnosticIterator.hasNext()) {
+			URI uri = syntaxDiagnosticIterator.next();
+			if (compileScheduler.isPending(uri)) {
+				// the syntax diagnostics are for newer contents than this
+				// compile has seen, so the next compile will replace them
+				continue;
+			}
+			syntaxDiagnosticIterator.remove();
+			if (!diagnosticsByFile.containsKey(uri)) {
+				result.add(new PublishDiagnosticsParams(uri.toString(), new ArrayList<>()));
 			}
 		}
-		prevDiagnosticsByFile = diagnosticsByFile;
+		prevDiagnosticsByFile = publishedDiagnosticsByFile;
 		return result;
 	}
+
+	private void publishSyntaxDiagnostics(URI uri, List<SyntaxException> errors) {
+		if (languageClient == null) {
+			return;
+		}
+		List<Diagnostic> diagnostics = errors.stream().map(GroovyLanguageServerUtils::syntaxExceptionToDiagnostic)
+				.collect(Collectors.toList());
+		synchronized (diagnosticsLock) {
+			// a compile clears the pending state before it starts, and it
+			// can't publish until this lock is released
+			if (!compileScheduler.isPending(uri)) {
+				// the full compile has already started with these contents,
+				// and its diagnostics will include these errors
+				return;
+			}
+			if (errors.isEmpty() && !syntaxDiagnosticURIs.contains(uri)) {
+				// keep the diagnostics from the last full compile until the
+				// next one replaces them
+				return;
+			}
+			syntaxDiagnosticURIs.add(uri);
+			languageClient.publishDiagnostics(new PublishDiagnosticsParams(uri.toString(), diagnostics));
+		}
+	}
 }
\ No newline at end of file
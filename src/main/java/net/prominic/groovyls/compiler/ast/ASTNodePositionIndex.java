@@ -0,0 +1,310 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.ast;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ASTNode;
+
+/**
+ * An immutable index of the AST nodes in a single source file that finds the
+ * innermost node containing a position with a binary search and a descent
+ * through a max-end segment tree, without allocating.
+ */
+public class ASTNodePositionIndex {
+	private static final long NO_POSITION = Long.MIN_VALUE;
+
+	private ASTNode[] nodes;
+	private long[] starts;
+	private long[] ends;
+	private int[] depths;
+	private long[] maxEnds;
+	private int leafCount;
+
+	/**
+	 * @param nodes  the nodes of a file, in the order that they were visited
+	 * @param depths the depth of each node in the visitor's stack
+	 */
+	public ASTNodePositionIndex(List<ASTNode> nodes, int[] depths) {
+		int count = 0;
+		Integer[] order = new Integer[nodes.size()];
+		for (int i = 0; i < nodes.size(); i++) {
+			if (getStart(nodes.get(i)) == NO_POSITION) {
+				// can't be the offset node if it has no position
+				continue;
+			}
+			order[count] = i;
+			count++;
+		}
+		order = Arrays.copyOf(order, count);
+		long[] unsortedStarts = new long[nodes.size()];
+		long[] unsortedEnds = new long[nodes.size()];
+		for (Integer i : order) {
+			ASTNode node = nodes.get(i);
+			unsortedStarts[i] = getStart(node);
+			unsortedEnds[i] = getEnd(node);
+		}
+		// the preferred node for a position is always the last one that
+		// contains it: the latest start, then the earliest end, then the
+		// deepest node, and finally the node that was visited first
+		Arrays.sort(order, (i1, i2) -> {
+			int result = Long.compare(unsortedStarts[i1], unsortedStarts[i2]);
+			if (result != 0) {
+				return result;
+			}
+			result = Long.compare(unsortedEnds[i2], unsortedEnds[i1]);
+			if (result != 0) {
+				return result;
+			}
+			result = Integer.compare(depths[i1], depths[i2]);
+			if (result != 0) {
+				return result;
+			}
+			return Integer.compare(i2, i1);
+		});
+
+		this.nodes = new ASTNode[count];
+		starts = new long[count];
+		ends = new long[count];
+		this.depths = new int[count];
+		for (int i = 0; i < count; i++) {
+			int nodeIndex = order[i];
+			this.nodes[i] = nodes.get(nodeIndex);
+			starts[i] = unsortedStarts[nodeIndex];
+			ends[i] = unsortedEnds[nodeIndex];
+			this.depths[i] = depths[nodeIndex];
+		}
+		buildMaxEnds();
+	}
+
+	private ASTNodePositionIndex(ASTNode[] nodes, long[] starts, long[] ends, int[] depths) {
+		this.nodes = nodes;
+		this.starts = starts;
+		this.ends = ends;
+		this.depths = depths;
+		buildMaxEnds();
+	}
+
+	private void buildMaxEnds() {
+		int count = nodes.length;
+		leafCount = 1;
+		while (leafCount < count) {
+			leafCount <<= 1;
+		}
+		maxEnds = new long[leafCount * 2];
+		Arrays.fill(maxEnds, NO_POSITION);
+		System.arraycopy(ends, 0, maxEnds, leafCount, count);
+		for (int i = leafCount - 1; i > 0; i--) {
+			maxEnds[i] = Math.max(maxEnds[2 * i], maxEnds[2 * i + 1]);
+		}
+	}
+
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * Returns a new index without the removed nodes, and with the added
+	 * nodes. Only the added nodes need to be sorted, and the remaining nodes
+	 * are merged with them in order. When an added node and a remaining node
+	 * compare equally, the added node is treated as if it had been visited
+	 * later.
+	 *
+	 * @param removedNodes a set of nodes compared by identity
+	 * @param addedNodes   the added nodes, in the order that they were visited
+	 * @param addedDepths  the depth of each added node in the visitor's stack
+	 */
+	public ASTNodePositionIndex replaceNodes(Set<ASTNode> removedNodes, List<ASTNode> addedNodes,
+			int[] addedDepths) {
+		ASTNodePositionIndex added = new ASTNodePositionIndex(addedNodes, addedDepths);
+		int maxCount = nodes.length + added.nodes.length;
+		ASTNode[] newNodes = new ASTNode[maxCount];
+		long[] newStarts = new long[maxCount];
+		long[] newEnds = new long[maxCount];
+		int[] newDepths = new int[maxCount];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < nodes.length || j < added.nodes.length) {
+			if (i < nodes.length && removedNodes.contains(nodes[i])) {
+				i++;
+				continue;
+			}
+			ASTNodePositionIndex source = this;
+			int index = i;
+			if (i == nodes.length || (j < added.nodes.length && compare(added, j, this, i) <= 0)) {
+				source = added;
+				index = j;
+				j++;
+			} else {
+				i++;
+			}
+			newNodes[count] = source.nodes[index];
+			newStarts[count] = source.starts[index];
+			newEnds[count] = source.ends[index];
+			newDepths[count] = source.depths[index];
+			count++;
+		}
+		return new ASTNodePositionIndex(Arrays.copyOf(newNodes, count), Arrays.copyOf(newStarts, count),
+				Arrays.copyOf(newEnds, count), Arrays.copyOf(newDepths, count));
+	}
+
+	private static int compare(ASTNodePositionIndex index1, int i1, ASTNodePositionIndex index2, int i2) {
+		int result = Long.compare(index1.starts[i1], index2.starts[i2]);
+		if (result != 0) {
+			return result;
+		}
+		result = Long.compare(index2.ends[i2], index1.ends[i1]);
+		if (result != 0) {
+			return result;
+		}
+		return Integer.compare(index1.depths[i1], index2.depths[i2]);
+	}
+
+	/**
+	 * Returns the innermost node that contains the specified LSP position, or
+	 * null if no node contains it.
+	 */
+	public ASTNode getNodeAt(int line, int column) {
+		if (nodes.length == 0) {
+			return null;
+		}
+		long position = toPosition(line, column);
+		// the last node that starts at or before the position
+		int low = 0;
+		int high = starts.length - 1;
+		int last = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (starts[mid] <= position) {
+				last = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		if (last == -1) {
+			return null;
+		}
+		int index = findLastEndingAtOrAfter(1, 0, leafCount - 1, last, position);
+		if (index == -1) {
+			return null;
+		}
+		return nodes[index];
+	}
+
+	/**
+	 * Returns the same node as getNodeAt() on a new index of these nodes, but
+	 * with a single pass over the nodes, which is faster when a file is
+	 * searched only once.
+	 *
+	 * @param nodes  the nodes of a file, in the order that they were visited
+	 * @param depths the depth of each node in the visitor's stack
+	 */
+	public static ASTNode findNodeAt(List<ASTNode> nodes, int[] depths, int line, int column) {
+		long position = toPosition(line, column);
+		ASTNode result = null;
+		long resultStart = NO_POSITION;
+		long resultEnd = NO_POSITION;
+		int resultDepth = -1;
+		for (int i = 0; i < nodes.size(); i++) {
+			ASTNode node = nodes.get(i);
+			long start = getStart(node);
+			if (start == NO_POSITION || start > position) {
+				continue;
+			}
+			long end = getEnd(node);
+			if (end < position) {
+				continue;
+			}
+			// the same order as the sorted nodes, where a node that was
+			// visited earlier wins a tie
+			if (result == null || start > resultStart || (start == resultStart
+					&& (end < resultEnd || (end == resultEnd && depths[i] > resultDepth)))) {
+				result = node;
+				resultStart = start;
+				resultEnd = end;
+				resultDepth = depths[i];
+			}
+		}
+		return result;
+	}
+
+	private int findLastEndingAtOrAfter(int treeIndex, int treeLow, int treeHigh, int last, long position) {
+		if (treeLow > last || maxEnds[treeIndex] < position) {
+			return -1;
+		}
+		if (treeLow == treeHigh) {
+			return treeLow;
+		}
+		int mid = (treeLow + treeHigh) >>> 1;
+		int result = findLastEndingAtOrAfter(2 * treeIndex + 1, mid + 1, treeHigh, last, position);
+		if (result != -1) {
+			return result;
+		}
+		return findLastEndingAtOrAfter(2 * treeIndex, treeLow, mid, last, position);
+	}
+
+	/**
+	 * Returns true if both nodes have the same LSP range.
+	 */
+	public static boolean hasSameRange(ASTNode n1, ASTNode n2) {
+		return getStart(n1) == getStart(n2) && getEnd(n1) == getEnd(n2);
+	}
+
+	// these match the conversions in GroovyLanguageServerUtils.astNodeToRange(),
+	// but they're packed into a long to avoid creating Range objects
+
+	private static long getStart(ASTNode node) {
+		return toGroovyPosition(node.getLineNumber(), node.getColumnNumber());
+	}
+
+	private static long getEnd(ASTNode node) {
+		long end = toGroovyPosition(node.getLastLineNumber(), node.getLastColumnNumber());
+		if (end == NO_POSITION) {
+			return getStart(node);
+		}
+		return end;
+	}
+
+	private static long toGroovyPosition(int groovyLine, int groovyColumn) {
+		if (groovyLine == -1) {
+			return NO_POSITION;
+		}
+		if (groovyColumn == -1) {
+			groovyColumn = 0;
+		}
+		int lspLine = groovyLine;
+		if (lspLine > 0) {
+			lspLine--;
+		}
+		int lspColumn = groovyColumn;
+		if (lspColumn > 0) {
+			lspColumn--;
+		}
+		return toPosition(lspLine, lspColumn);
+	}
+
+	private static long toPosition(int line, int column) {
+		return ((long) line << 32) | (column & 0xffffffffL);
+	}
+}
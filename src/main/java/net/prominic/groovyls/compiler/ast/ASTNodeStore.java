@@ -0,0 +1,357 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.ast;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ASTNode;
+
+/**
+ * Assigns an int id to each visited AST node, and stores the parent and URI of
+ * each node in primitive arrays, indexed by id.
+ *
+ * Nodes are keyed by identity because some ASTNode subclasses, like ClassNode,
+ * override equals() and hashCode() with comparisons that are not strict.
+ */
+public class ASTNodeStore {
+	private static final int NO_ID = -1;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	// open addressing hash table with linear probing, from node to id
+	private ASTNode[] tableKeys = new ASTNode[INITIAL_CAPACITY * 2];
+	private int[] tableIds = new int[INITIAL_CAPACITY * 2];
+	private int tableSize = 0;
+
+	private ASTNode[] nodes = new ASTNode[INITIAL_CAPACITY];
+	private int[] parentIds = new int[INITIAL_CAPACITY];
+	private int[] uriIds = new int[INITIAL_CAPACITY];
+	private boolean[] hidden = new boolean[INITIAL_CAPACITY];
+	private int nextId = 0;
+	private int[] freeIds = new int[16];
+	private int freeCount = 0;
+
+	private List<URI> uris = new ArrayList<>();
+	private Map<URI, Integer> uriToId = new HashMap<>();
+	private List<int[]> idsByURI = new ArrayList<>();
+	private int[] idCountsByURI = new int[16];
+
+	/**
+	 * Adds a node, or updates the parent and URI of a node that was already
+	 * added. Hidden nodes may be parents of other nodes, but they have no
+	 * parent or URI of their own.
+	 *
+	 * @return the node's id
+	 */
+	public int add(ASTNode node, int parentId, URI uri, boolean isHidden) {
+		int uriId = getURIId(uri);
+		int id = getId(node);
+		if (id == NO_ID) {
+			id = allocateId();
+			nodes[id] = node;
+			insert(node, id);
+		}
+		parentIds[id] = parentId;
+		uriIds[id] = uriId;
+		hidden[id] = isHidden;
+		addToURI(uriId, id);
+		return id;
+	}
+
+	public int getId(ASTNode node) {
+		if (node == null) {
+			return NO_ID;
+		}
+		int mask = tableKeys.length - 1;
+		int slot = hash(node) & mask;
+		while (true) {
+			ASTNode key = tableKeys[slot];
+			if (key == null) {
+				return NO_ID;
+			}
+			if (key == node) {
+				return tableIds[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	public ASTNode getParent(ASTNode node) {
+		int id = getId(node);
+		if (id == NO_ID || hidden[id]) {
+			return null;
+		}
+		int parentId = parentIds[id];
+		if (parentId == NO_ID) {
+			return null;
+		}
+		return nodes[parentId];
+	}
+
+	public URI getURI(ASTNode node) {
+		int id = getId(node);
+		if (id == NO_ID || hidden[id]) {
+			return null;
+		}
+		return uris.get(uriIds[id]);
+	}
+
+	/**
+	 * Returns the number of ids that are recorded for a URI, including any
+	 * stale ids that haven't been compacted yet.
+	 */
+	int getIdCount(URI uri) {
+		Integer uriId = uriToId.get(uri);
+		if (uriId == null) {
+			return 0;
+		}
+		return idCountsByURI[uriId];
+	}
+
+	public void remove(ASTNode node) {
+		int id = getId(node);
+		if (id == NO_ID) {
+			return;
+		}
+		remove(id);
+	}
+
+	/**
+	 * Adds all nodes from another store, with the same parents and URIs. A
+	 * node that was already added is updated, like add().
+	 */
+	public void addAll(ASTNodeStore other) {
+		int[] newIds = new int[other.nextId];
+		for (int otherId = 0; otherId < other.nextId; otherId++) {
+			ASTNode node = other.nodes[otherId];
+			if (node == null) {
+				continue;
+			}
+			int id = getId(node);
+			if (id == NO_ID) {
+				id = allocateId();
+				nodes[id] = node;
+				insert(node, id);
+			}
+			newIds[otherId] = id;
+		}
+		// parents may be added after their children when ids are reused, so
+		// the parents are mapped after every node has a new id
+		for (int otherId = 0; otherId < other.nextId; otherId++) {
+			if (other.nodes[otherId] == null) {
+				continue;
+			}
+			int id = newIds[otherId];
+			int otherParentId = other.parentIds[otherId];
+			parentIds[id] = otherParentId == NO_ID ? NO_ID : newIds[otherParentId];
+			int uriId = getURIId(other.uris.get(other.uriIds[otherId]));
+			uriIds[id] = uriId;
+			hidden[id] = other.hidden[otherId];
+			addToURI(uriId, id);
+		}
+	}
+
+	/**
+	 * Removes all nodes that were added with the specified URI.
+	 */
+	public void removeURI(URI uri) {
+		Integer uriId = uriToId.get(uri);
+		if (uriId == null) {
+			return;
+		}
+		int[] ids = idsByURI.get(uriId);
+		int count = idCountsByURI[uriId];
+		for (int i = 0; i < count; i++) {
+			int id = ids[i];
+			// a node may have been added again with a different URI
+			if (nodes[id] == null || uriIds[id] != uriId) {
+				continue;
+			}
+			remove(id);
+		}
+		idsByURI.set(uriId, null);
+		idCountsByURI[uriId] = 0;
+	}
+
+	public void clear() {
+		Arrays.fill(tableKeys, null);
+		tableSize = 0;
+		Arrays.fill(nodes, 0, nextId, null);
+		nextId = 0;
+		freeCount = 0;
+		uris.clear();
+		uriToId.clear();
+		idsByURI.clear();
+	}
+
+	private int getURIId(URI uri) {
+		Integer uriId = uriToId.get(uri);
+		if (uriId == null) {
+			uriId = uris.size();
+			uris.add(uri);
+			uriToId.put(uri, uriId);
+			idsByURI.add(null);
+			if (uriId == idCountsByURI.length) {
+				idCountsByURI = Arrays.copyOf(idCountsByURI, uriId * 2);
+			}
+			idCountsByURI[uriId] = 0;
+		}
+		return uriId;
+	}
+
+	private void addToURI(int uriId, int id) {
+		int[] ids = idsByURI.get(uriId);
+		int count = idCountsByURI[uriId];
+		if (ids == null) {
+			ids = new int[64];
+			idsByURI.set(uriId, ids);
+		} else if (count == ids.length) {
+			// nodes that were removed one at a time, or added again, leave
+			// stale ids behind, so only grow if most of the ids are live
+			count = compactURI(uriId, ids, count);
+			if (count * 2 > ids.length) {
+				ids = Arrays.copyOf(ids, ids.length * 2);
+				idsByURI.set(uriId, ids);
+			}
+		}
+		ids[count] = id;
+		idCountsByURI[uriId] = count + 1;
+	}
+
+	private int compactURI(int uriId, int[] ids, int count) {
+		Arrays.sort(ids, 0, count);
+		int newCount = 0;
+		for (int i = 0; i < count; i++) {
+			int id = ids[i];
+			if (nodes[id] == null || uriIds[id] != uriId) {
+				continue;
+			}
+			if (newCount > 0 && ids[newCount - 1] == id) {
+				continue;
+			}
+			ids[newCount] = id;
+			newCount++;
+		}
+		return newCount;
+	}
+
+	private int allocateId() {
+		if (freeCount > 0) {
+			freeCount--;
+			return freeIds[freeCount];
+		}
+		if (nextId == nodes.length) {
+			int capacity = nodes.length * 2;
+			nodes = Arrays.copyOf(nodes, capacity);
+			parentIds = Arrays.copyOf(parentIds, capacity);
+			uriIds = Arrays.copyOf(uriIds, capacity);
+			hidden = Arrays.copyOf(hidden, capacity);
+		}
+		int id = nextId;
+		nextId++;
+		return id;
+	}
+
+	private void remove(int id) {
+		ASTNode node = nodes[id];
+		nodes[id] = null;
+		delete(node);
+		if (freeCount == freeIds.length) {
+			freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+		}
+		freeIds[freeCount] = id;
+		freeCount++;
+	}
+
+	private void insert(ASTNode node, int id) {
+		if ((tableSize + 1) * 2 > tableKeys.length) {
+			resize(tableKeys.length * 2);
+		}
+		int mask = tableKeys.length - 1;
+		int slot = hash(node) & mask;
+		while (tableKeys[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+		tableKeys[slot] = node;
+		tableIds[slot] = id;
+		tableSize++;
+	}
+
+	private void delete(ASTNode node) {
+		int mask = tableKeys.length - 1;
+		int slot = hash(node) & mask;
+		while (tableKeys[slot] != node) {
+			if (tableKeys[slot] == null) {
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		// shift back any following entries that would no longer be reachable
+		// so that no tombstones are needed
+		int empty = slot;
+		int current = slot;
+		while (true) {
+			current = (current + 1) & mask;
+			ASTNode key = tableKeys[current];
+			if (key == null) {
+				break;
+			}
+			int ideal = hash(key) & mask;
+			boolean movable = (empty <= current) ? (ideal <= empty || ideal > current)
+					: (ideal <= empty && ideal > current);
+			if (movable) {
+				tableKeys[empty] = key;
+				tableIds[empty] = tableIds[current];
+				empty = current;
+			}
+		}
+		tableKeys[empty] = null;
+		tableSize--;
+	}
+
+	private void resize(int capacity) {
+		ASTNode[] oldKeys = tableKeys;
+		int[] oldIds = tableIds;
+		tableKeys = new ASTNode[capacity];
+		tableIds = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			ASTNode key = oldKeys[i];
+			if (key == null) {
+				continue;
+			}
+			int slot = hash(key) & mask;
+			while (tableKeys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			tableKeys[slot] = key;
+			tableIds[slot] = oldIds[i];
+		}
+	}
+
+	static int hash(ASTNode node) {
+		int h = System.identityHashCode(node);
+		return h ^ (h >>> 16);
+	}
+}
\ No newline at end of file
@@ -21,13 +21,16 @@ package net.prominic.groovyls.compiler.ast;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.AnnotatedNode;
@@ -84,6 +87,7 @@ import org.codehaus.groovy.ast.stmt.ExpressionStatement;
 import org.codehaus.groovy.ast.stmt.ForStatement;
 import org.codehaus.groovy.ast.stmt.IfStatement;
 import org.codehaus.groovy.ast.stmt.ReturnStatement;
+import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.ast.stmt.SwitchStatement;
 import org.codehaus.groovy.ast.stmt.SynchronizedStatement;
 import org.codehaus.groovy.ast.stmt.ThrowStatement;
@@ -92,39 +96,16 @@ import org.codehaus.groovy.ast.stmt.WhileStatement;
 import org.codehaus.groovy.classgen.BytecodeExpression;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.SourceUnit;
-import org.eclipse.lsp4j.Position;
-import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 
-import net.prominic.groovyls.util.GroovyLanguageServerUtils;
-import net.prominic.lsp.utils.Positions;
-import net.prominic.lsp.utils.Ranges;
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex;
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex.ClassEntry;
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex.Kind;
+import net.prominic.groovyls.compiler.util.GroovyASTUtils;
 
 public class ASTNodeVisitor extends ClassCodeVisitorSupport {
-	private class ASTLookupKey {
-		public ASTLookupKey(ASTNode node) {
-			this.node = node;
-		}
-
-		private ASTNode node;
-
-		@Override
-		public boolean equals(Object o) {
-			// some ASTNode subclasses, like ClassNode, override equals() with
-			// comparisons that are not strict. we need strict.
-			ASTLookupKey other = (ASTLookupKey) o;
-			return node == other.node;
-		}
-
-		@Override
-		public int hashCode() {
-			return node.hashCode();
-		}
-	}
-
-	private class ASTNodeLookupData {
-		public ASTNode parent;
-		public URI uri;
-	}
+	private static final int CANCEL_CHECK_INTERVAL_MASK = 0xFF;
+	private static final int PARALLEL_VISIT_THRESHOLD = 16;
 
 	private SourceUnit sourceUnit;
 
@@ -133,46 +114,176 @@ public class ASTNodeVisitor extends ClassCodeVisitorSupport {
 		return sourceUnit;
 	}
 
-	private Stack<ASTNode> stack = new Stack<>();
+	private int[] stack = new int[64];
+	private int stackSize = 0;
 	private Map<URI, List<ASTNode>> nodesByURI = new HashMap<>();
 	private Map<URI, List<ClassNode>> classNodesByURI = new HashMap<>();
-	private Map<ASTLookupKey, ASTNodeLookupData> lookup = new HashMap<>();
+	private Map<String, List<ClassNode>> classNodesByName = new HashMap<>();
+	private ASTNodeStore store = new ASTNodeStore();
+	private Map<URI, Map<ASTNode, List<ASTNode>>> referencesByURI = new HashMap<>();
+	private Map<URI, Set<URI>> definitionURIsByURI = new HashMap<>();
+	private Set<URI> staleReferenceURIs = new HashSet<>();
+	private Map<URI, ASTNodePositionIndex> positionIndexesByURI = new HashMap<>();
+	private Map<URI, int[]> overlayDepthsByURI = new HashMap<>();
+	private WorkspaceSymbolIndex symbolIndex = new WorkspaceSymbolIndex();
+	private ClasspathIndex sourceClassIndex;
+	private Map<String, MemberTable> memberTables = new HashMap<>();
+	private Map<URI, Set<String>> memberTableNamesByURI = new HashMap<>();
+	private int[] sourceUnitDepths = new int[0];
+	private CancelChecker cancelChecker;
+	private int pushCount = 0;
+	private ASTNodeVisitor baseVisitor;
+
+	public ASTNodeVisitor() {
+	}
+
+	/**
+	 * Creates a visitor that overlays another visitor. The nodes from the URIs
+	 * visited by this visitor replace the base visitor's nodes from the same
+	 * URIs, and the base visitor's nodes from all other URIs are still
+	 * available. The base visitor is not modified.
+	 */
+	public ASTNodeVisitor(ASTNodeVisitor baseVisitor) {
+		this.baseVisitor = baseVisitor;
+	}
 
 	private void pushASTNode(ASTNode node) {
+		pushCount++;
+		if (cancelChecker != null && (pushCount & CANCEL_CHECK_INTERVAL_MASK) == 0) {
+			cancelChecker.checkCanceled();
+		}
 		boolean isSynthetic = false;
 		if (node instanceof AnnotatedNode) {
 			AnnotatedNode annotatedNode = (AnnotatedNode) node;
 			isSynthetic = annotatedNode.isSynthetic();
 		}
+		URI uri = sourceUnit.getSource().getURI();
+		int parentId = stackSize > 0 ? stack[stackSize - 1] : -1;
+		int id = -1;
 		if (!isSynthetic) {
-			URI uri = sourceUnit.getSource().getURI();
-			nodesByURI.get(uri).add(node);
-
-			ASTNodeLookupData data = new ASTNodeLookupData();
-			data.uri = uri;
-			if (stack.size() > 0) {
-				data.parent = stack.lastElement();
+			List<ASTNode> nodes = nodesByURI.get(uri);
+			if (nodes.size() == sourceUnitDepths.length) {
+				sourceUnitDepths = Arrays.copyOf(sourceUnitDepths, Math.max(256, nodes.size() * 2));
+			}
+			sourceUnitDepths[nodes.size()] = stackSize;
+			nodes.add(node);
+
+			id = store.add(node, parentId, uri, false);
+		} else {
+			// synthetic nodes have no parent or URI of their own, but they
+			// may be the parent of other nodes
+			id = store.getId(node);
+			if (id == -1) {
+				id = store.add(node, parentId, uri, true);
 			}
-			lookup.put(new ASTLookupKey(node), data);
 		}
 
-		stack.add(node);
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stackSize * 2);
+		}
+		stack[stackSize] = id;
+		stackSize++;
 	}
 
 	private void popASTNode() {
-		stack.pop();
+		stackSize--;
 	}
 
 	public List<ClassNode> getClassNodes() {
 		List<ClassNode> result = new ArrayList<>();
+		if (baseVisitor != null) {
+			baseVisitor.classNodesByURI.forEach((uri, nodes) -> {
+				if (!classNodesByURI.containsKey(uri)) {
+					result.addAll(nodes);
+				}
+			});
+		}
 		for (List<ClassNode> nodes : classNodesByURI.values()) {
 			result.addAll(nodes);
 		}
 		return result;
 	}
 
+	/**
+	 * Returns an index of the source classes, like the index of the classes
+	 * on the classpath. It is created when it is first needed after a visit.
+	 */
+	public ClasspathIndex getSourceClassIndex() {
+		if (sourceClassIndex == null) {
+			List<ClassEntry> classes = new ArrayList<>();
+			for (ClassNode classNode : getClassNodes()) {
+				Kind kind = Kind.CLASS;
+				if (classNode.isInterface()) {
+					kind = Kind.INTERFACE;
+				} else if (classNode.isEnum()) {
+					kind = Kind.ENUM;
+				}
+				String packageName = classNode.getPackageName();
+				if (packageName == null) {
+					packageName = "";
+				}
+				classes.add(new ClassEntry(classNode.getName(), classNode.getNameWithoutPackage(), packageName, kind));
+			}
+			sourceClassIndex = new ClasspathIndex(classes, Collections.emptyList());
+		}
+		return sourceClassIndex;
+	}
+
+	/**
+	 * Returns the members of a class and its supertypes. The table is kept
+	 * until a source unit that declares one of the classes is visited again.
+	 * An overlay reuses the base visitor's tables, except for hierarchies
+	 * that include a class from one of the overlay's URIs.
+	 */
+	public MemberTable getMemberTable(ClassNode classNode) {
+		String name = classNode.getName();
+		MemberTable memberTable = memberTables.get(name);
+		if (memberTable != null) {
+			return memberTable;
+		}
+		if (baseVisitor != null && !classNodesByName.containsKey(name)) {
+			MemberTable baseMemberTable = baseVisitor.getMemberTable(classNode);
+			boolean overlaid = baseMemberTable.getURIs().stream().anyMatch(nodesByURI::containsKey)
+					|| baseMemberTable.getClassNames().stream().anyMatch(classNodesByName::containsKey);
+			if (!overlaid) {
+				return baseMemberTable;
+			}
+		}
+		memberTable = new MemberTable(classNode, this);
+		memberTables.put(name, memberTable);
+		for (URI uri : memberTable.getURIs()) {
+			memberTableNamesByURI.computeIfAbsent(uri, key -> new HashSet<>()).add(name);
+		}
+		return memberTable;
+	}
+
+	/**
+	 * Returns the source ClassNode with the specified fully-qualified name,
+	 * or null if there is no class with that name in the workspace.
+	 */
+	public ClassNode getClassNodeByName(String name) {
+		List<ClassNode> classNodes = classNodesByName.get(name);
+		if (classNodes == null || classNodes.isEmpty()) {
+			if (baseVisitor != null) {
+				ClassNode classNode = baseVisitor.getClassNodeByName(name);
+				if (classNode != null && !nodesByURI.containsKey(baseVisitor.getURI(classNode))) {
+					return classNode;
+				}
+			}
+			return null;
+		}
+		return classNodes.get(0);
+	}
+
 	public List<ASTNode> getNodes() {
 		List<ASTNode> result = new ArrayList<>();
+		if (baseVisitor != null) {
+			baseVisitor.nodesByURI.forEach((uri, nodes) -> {
+				if (!nodesByURI.containsKey(uri)) {
+					result.addAll(nodes);
+				}
+			});
+		}
 		for (List<ASTNode> nodes : nodesByURI.values()) {
 			result.addAll(nodes);
 		}
@@ -182,74 +293,121 @@ public class ASTNodeVisitor extends ClassCodeVisitorSupport {
 	public List<ASTNode> getNodes(URI uri) {
 		List<ASTNode> nodes = nodesByURI.get(uri);
 		if (nodes == null) {
+			if (baseVisitor != null) {
+				return baseVisitor.getNodes(uri);
+			}
 			return Collections.emptyList();
 		}
 		return nodes;
 	}
 
-	public ASTNode getNodeAtLineAndColumn(URI uri, int line, int column) {
-		Position position = new Position(line, column);
-		Map<ASTNode, Range> nodeToRange = new HashMap<>();
-		List<ASTNode> nodes = nodesByURI.get(uri);
-		if (nodes == null) {
-			return null;
+	/**
+	 * Returns the best matches for a workspace symbol query.
+	 */
+	public List<WorkspaceSymbolIndex.Symbol> getWorkspaceSymbols(String query, int maxResults) {
+		if (baseVisitor != null) {
+			// an overlay is short-lived, so its own symbols aren't indexed
+			// separately from the base visitor's symbols
+			return baseVisitor.getWorkspaceSymbols(query, maxResults);
 		}
-		List<ASTNode> foundNodes = nodes.stream().filter(node -> {
-			if (node.getLineNumber() == -1) {
-				// can't be the offset node if it has no position
-				// also, do this first because it's the fastest comparison
-				return false;
-			}
-			Range range = GroovyLanguageServerUtils.astNodeToRange(node);
-			if (range == null) {
-				return false;
+		return symbolIndex.search(query, maxResults);
+	}
+
+	/**
+	 * Returns all nodes that resolve to the specified definition, using an
+	 * index that is updated only for the URIs that have been visited since
+	 * the last time that references were requested.
+	 */
+	public List<ASTNode> getReferences(ASTNode definitionNode) {
+		List<ASTNode> result = new ArrayList<>();
+		if (baseVisitor != null) {
+			baseVisitor.updateReferences();
+			baseVisitor.addReferences(definitionNode, nodesByURI.keySet(), result);
+		}
+		updateReferences();
+		addReferences(definitionNode, Collections.emptySet(), result);
+		return result;
+	}
+
+	private void addReferences(ASTNode definitionNode, Set<URI> excludedURIs, List<ASTNode> result) {
+		for (URI uri : nodesByURI.keySet()) {
+			if (excludedURIs.contains(uri)) {
+				continue;
 			}
-			boolean result = Ranges.contains(range, position);
-			if (result) {
-				// save the range object to avoid creating it again when we
-				// sort the nodes
-				nodeToRange.put(node, range);
+			Map<ASTNode, List<ASTNode>> references = referencesByURI.get(uri);
+			if (references == null) {
+				continue;
 			}
-			return result;
-		}).sorted((n1, n2) -> {
-			int result = Positions.COMPARATOR.reversed().compare(nodeToRange.get(n1).getStart(),
-					nodeToRange.get(n2).getStart());
-			if (result != 0) {
-				return result;
+			List<ASTNode> nodes = references.get(definitionNode);
+			if (nodes != null) {
+				result.addAll(nodes);
 			}
-			result = Positions.COMPARATOR.compare(nodeToRange.get(n1).getEnd(), nodeToRange.get(n2).getEnd());
-			if (result != 0) {
-				return result;
+		}
+	}
+
+	private void updateReferences() {
+		for (URI uri : staleReferenceURIs) {
+			List<ASTNode> nodes = nodesByURI.get(uri);
+			if (nodes == null) {
+				continue;
 			}
-			// n1 and n2 have the same range
-			if (contains(n1, n2)) {
-				if (n1 instanceof ClassNode && n2 instanceof ConstructorNode) {
-					return -1;
+			// ClassNode definitions are matched by name, like equals()
+			Map<ASTNode, List<ASTNode>> references = new HashMap<>();
+			Set<URI> definitionURIs = new HashSet<>();
+			for (ASTNode node : nodes) {
+				ASTNode definitionNode = null;
+				try {
+					definitionNode = GroovyASTUtils.getDefinition(node, false, this);
+				} catch (Exception e) {
+					// a node that can't be resolved can't be a reference
+				}
+				if (definitionNode == null) {
+					continue;
 				}
-				return 1;
-			} else if (contains(n2, n1)) {
-				if (n2 instanceof ClassNode && n1 instanceof ConstructorNode) {
-					return 1;
+				references.computeIfAbsent(definitionNode, key -> new ArrayList<>()).add(node);
+				URI definitionURI = getURI(definitionNode);
+				if (definitionURI != null && !definitionURI.equals(uri)) {
+					definitionURIs.add(definitionURI);
 				}
-				return -1;
 			}
-			return 0;
-		}).collect(Collectors.toList());
-		if (foundNodes.size() == 0) {
+			referencesByURI.put(uri, references);
+			definitionURIsByURI.put(uri, definitionURIs);
+		}
+		staleReferenceURIs.clear();
+	}
+
+	public ASTNode getNodeAtLineAndColumn(URI uri, int line, int column) {
+		ASTNode result = null;
+		ASTNodePositionIndex positionIndex = positionIndexesByURI.get(uri);
+		int[] overlayDepths = overlayDepthsByURI.get(uri);
+		if (positionIndex != null) {
+			result = positionIndex.getNodeAt(line, column);
+		} else if (overlayDepths != null) {
+			result = ASTNodePositionIndex.findNodeAt(nodesByURI.get(uri), overlayDepths, line, column);
+		} else if (baseVisitor != null) {
+			return baseVisitor.getNodeAtLineAndColumn(uri, line, column);
+		} else {
 			return null;
 		}
-		return foundNodes.get(0);
+		if (result instanceof ConstructorNode) {
+			// a class and its constructor may have the same range, and the
+			// class is preferred
+			ASTNode parent = getParent(result);
+			if (parent instanceof ClassNode && ASTNodePositionIndex.hasSameRange(parent, result)) {
+				return parent;
+			}
+		}
+		return result;
 	}
 
 	public ASTNode getParent(ASTNode child) {
 		if (child == null) {
 			return null;
 		}
-		ASTNodeLookupData data = lookup.get(new ASTLookupKey(child));
-		if (data == null) {
-			return null;
+		if (baseVisitor != null && store.getId(child) == -1) {
+			return baseVisitor.getParent(child);
 		}
-		return data.parent;
+		return store.getParent(child);
 	}
 
 	public boolean contains(ASTNode ancestor, ASTNode descendant) {
@@ -264,32 +422,117 @@ public class ASTNodeVisitor extends ClassCodeVisitorSupport {
 	}
 
 	public URI getURI(ASTNode node) {
-		ASTNodeLookupData data = lookup.get(new ASTLookupKey(node));
-		if (data == null) {
-			return null;
+		if (baseVisitor != null && store.getId(node) == -1) {
+			return baseVisitor.getURI(node);
 		}
-		return data.uri;
+		return store.getURI(node);
+	}
+
+	/**
+	 * If the cancel checker reports that the visit was canceled, a
+	 * CancellationException is thrown, and the URIs that were being visited
+	 * must be visited again before the visitor may be used.
+	 */
+	public void setCancelChecker(CancelChecker cancelChecker) {
+		this.cancelChecker = cancelChecker;
 	}
 
 	public void visitCompilationUnit(CompilationUnit unit) {
+		sourceClassIndex = null;
+		memberTables.clear();
+		memberTableNamesByURI.clear();
 		nodesByURI.clear();
 		classNodesByURI.clear();
-		lookup.clear();
-		unit.iterator().forEachRemaining(sourceUnit -> {
-			visitSourceUnit(sourceUnit);
+		classNodesByName.clear();
+		store.clear();
+		positionIndexesByURI.clear();
+		overlayDepthsByURI.clear();
+		symbolIndex.clear();
+		referencesByURI.clear();
+		definitionURIsByURI.clear();
+		staleReferenceURIs.clear();
+		List<SourceUnit> sourceUnits = new ArrayList<>();
+		unit.iterator().forEachRemaining(sourceUnits::add);
+		if (sourceUnits.size() < PARALLEL_VISIT_THRESHOLD) {
+			sourceUnits.forEach(this::visitSourceUnit);
+		} else {
+			visitSourceUnitsInParallel(sourceUnits);
+		}
+		staleReferenceURIs.addAll(nodesByURI.keySet());
+	}
+
+	/**
+	 * Each thread visits source units into its own shard, and the shards are
+	 * merged when all source units have been visited.
+	 */
+	private void visitSourceUnitsInParallel(List<SourceUnit> sourceUnits) {
+		Map<Thread, ASTNodeVisitor> shards = new ConcurrentHashMap<>();
+		sourceUnits.parallelStream().forEach(sourceUnit -> {
+			ASTNodeVisitor shard = shards.computeIfAbsent(Thread.currentThread(), thread -> {
+				ASTNodeVisitor newShard = new ASTNodeVisitor();
+				newShard.setCancelChecker(cancelChecker);
+				return newShard;
+			});
+			shard.visitSourceUnit(sourceUnit);
 		});
+		for (ASTNodeVisitor shard : shards.values()) {
+			nodesByURI.putAll(shard.nodesByURI);
+			classNodesByURI.putAll(shard.classNodesByURI);
+			store.addAll(shard.store);
+			positionIndexesByURI.putAll(shard.positionIndexesByURI);
+			symbolIndex.addAll(shard.symbolIndex);
+		}
+		// classes with the same name are added in the same order as a
+		// sequential visit, so that the same one is found by name
+		for (SourceUnit sourceUnit : sourceUnits) {
+			List<ClassNode> classNodes = classNodesByURI.get(sourceUnit.getSource().getURI());
+			if (classNodes == null) {
+				continue;
+			}
+			for (ClassNode classNode : classNodes) {
+				classNodesByName.computeIfAbsent(classNode.getName(), key -> new ArrayList<>()).add(classNode);
+			}
+		}
 	}
 
 	public void visitCompilationUnit(CompilationUnit unit, Collection<URI> uris) {
+		sourceClassIndex = null;
 		uris.forEach(uri -> {
 			// clear all old nodes so that they may be replaced
-			List<ASTNode> nodes = nodesByURI.remove(uri);
-			if (nodes != null) {
-				nodes.forEach(node -> {
-					lookup.remove(new ASTLookupKey(node));
+			nodesByURI.remove(uri);
+			store.removeURI(uri);
+			List<ClassNode> classNodes = classNodesByURI.remove(uri);
+			if (classNodes != null) {
+				classNodes.forEach(classNode -> {
+					List<ClassNode> classNodesWithName = classNodesByName.get(classNode.getName());
+					if (classNodesWithName == null) {
+						return;
+					}
+					classNodesWithName.removeIf(otherClassNode -> otherClassNode == classNode);
+					if (classNodesWithName.isEmpty()) {
+						classNodesByName.remove(classNode.getName());
+					}
 				});
 			}
-			classNodesByURI.remove(uri);
+			positionIndexesByURI.remove(uri);
+			overlayDepthsByURI.remove(uri);
+			symbolIndex.removeURI(uri);
+			referencesByURI.remove(uri);
+			definitionURIsByURI.remove(uri);
+			Set<String> memberTableNames = memberTableNamesByURI.remove(uri);
+			if (memberTableNames != null) {
+				memberTableNames.forEach(memberTables::remove);
+			}
+		});
+		// references in other files to definitions in these files need to be
+		// resolved again because the definitions are new nodes
+		definitionURIsByURI.forEach((otherURI, definitionURIs) -> {
+			for (URI uri : uris) {
+				if (definitionURIs.contains(uri)) {
+					staleReferenceURIs.add(otherURI);
+					break;
+				}
+			}
 		});
 		unit.iterator().forEachRemaining(sourceUnit -> {
 			URI uri = sourceUnit.getSource().getURI();
@@ -298,20 +541,100 @@ public class ASTNodeVisitor extends ClassCodeVisitorSupport {
 			}
 			visitSourceUnit(sourceUnit);
 		});
+		staleReferenceURIs.addAll(uris);
+	}
+
+	/**
+	 * Replaces the nodes of a method's old body with the nodes of its current
+	 * body, without visiting the rest of the source unit again. Returns false
+	 * if the old body was not visited, and nothing was replaced.
+	 */
+	public boolean visitMethodCode(SourceUnit unit, MethodNode method, Statement oldCode) {
+		URI uri = unit.getSource().getURI();
+		List<ASTNode> nodes = nodesByURI.get(uri);
+		ASTNodePositionIndex positionIndex = positionIndexesByURI.get(uri);
+		int methodId = store.getId(method);
+		if (nodes == null || positionIndex == null || methodId == -1) {
+			return false;
+		}
+		int start = -1;
+		for (int i = 0; i < nodes.size(); i++) {
+			if (nodes.get(i) == oldCode) {
+				start = i;
+				break;
+			}
+		}
+		if (start == -1) {
+			return false;
+		}
+		// the descendants of a node are always visited immediately after it
+		int end = start + 1;
+		while (end < nodes.size() && contains(oldCode, nodes.get(end))) {
+			end++;
+		}
+		int depth = 0;
+		ASTNode ancestor = store.getParent(oldCode);
+		while (ancestor != null) {
+			depth++;
+			ancestor = store.getParent(ancestor);
+		}
+		if (depth == 0) {
+			return false;
+		}
+		List<ASTNode> oldNodes = nodes.subList(start, end);
+		Set<ASTNode> removedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		removedNodes.addAll(oldNodes);
+		removedNodes.forEach(store::remove);
+
+		List<ASTNode> newNodes = new ArrayList<>();
+		nodesByURI.put(uri, newNodes);
+		sourceUnit = unit;
+		if (depth > stack.length) {
+			stack = new int[depth * 2];
+		}
+		// only the parent of the new body matters here
+		Arrays.fill(stack, 0, depth, -1);
+		stack[depth - 1] = methodId;
+		stackSize = depth;
+		try {
+			method.getCode().visit(this);
+		} finally {
+			sourceUnit = null;
+			stackSize = 0;
+			nodesByURI.put(uri, nodes);
+		}
+		oldNodes.clear();
+		nodes.addAll(start, newNodes);
+		int[] newDepths = Arrays.copyOf(sourceUnitDepths, newNodes.size());
+		positionIndexesByURI.put(uri, positionIndex.replaceNodes(removedNodes, newNodes, newDepths));
+		// the body can't contain definitions that are referenced from other
+		// files, so only this file's references are stale
+		staleReferenceURIs.add(uri);
+		return true;
 	}
 
 	public void visitSourceUnit(SourceUnit unit) {
+		sourceClassIndex = null;
 		sourceUnit = unit;
 		URI uri = sourceUnit.getSource().getURI();
 		nodesByURI.put(uri, new ArrayList<>());
 		classNodesByURI.put(uri, new ArrayList<>());
-		stack.clear();
+		stackSize = 0;
 		ModuleNode moduleNode = unit.getAST();
 		if (moduleNode != null) {
 			visitModule(moduleNode);
 		}
+		List<ASTNode> nodes = nodesByURI.get(uri);
+		if (baseVisitor != null) {
+			// an overlay is usually searched once, and it never searches its
+			// own symbols, so it doesn't build any indexes for its URIs
+			overlayDepthsByURI.put(uri, Arrays.copyOf(sourceUnitDepths, nodes.size()));
+		} else {
+			positionIndexesByURI.put(uri, new ASTNodePositionIndex(nodes, sourceUnitDepths));
+			symbolIndex.updateURI(uri, nodes, this);
+		}
 		sourceUnit = null;
-		stack.clear();
+		stackSize = 0;
 	}
 
 	public void visitModule(ModuleNode node) {
@@ -330,6 +653,7 @@ public class ASTNodeVisitor extends ClassCodeVisitorSupport {
 	public void visitClass(ClassNode node) {
 		URI uri = sourceUnit.getSource().getURI();
 		classNodesByURI.get(uri).add(node);
+		classNodesByName.computeIfAbsent(node.getName(), key -> new ArrayList<>()).add(node);
 		pushASTNode(node);
 		try {
 			ClassNode unresolvedSuperClass = node.getUnresolvedSuperClass();
@@ -0,0 +1,199 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.ast;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
+
+/**
+ * The fields, properties, and methods of a class, including the members
+ * inherited from its superclasses and interfaces. A member that is declared
+ * again in a subclass hides the inherited member. Static and instance
+ * members are kept separately, sorted by name, so that the members that
+ * start with a prefix may be found with a binary search.
+ */
+public class MemberTable {
+	private static class SortedMembers<T extends AnnotatedNode> {
+		private List<T> nodes;
+		private String[] names;
+
+		public SortedMembers(List<T> nodes, Function<T, String> getName, Function<T, String> getKey) {
+			// the sort is stable, so a subclass member stays before the
+			// inherited member that it hides
+			List<T> sortedNodes = new ArrayList<>(nodes);
+			sortedNodes.sort(Comparator.comparing(getName));
+			Set<String> keys = new HashSet<>();
+			this.nodes = new ArrayList<>();
+			for (T node : sortedNodes) {
+				if (keys.add(getKey.apply(node))) {
+					this.nodes.add(node);
+				}
+			}
+			names = new String[this.nodes.size()];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = getName.apply(this.nodes.get(i));
+			}
+		}
+
+		public List<T> find(String prefix) {
+			int low = 0;
+			int high = names.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (names[middle].compareTo(prefix) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			int end = low;
+			while (end < names.length && names[end].startsWith(prefix)) {
+				end++;
+			}
+			return Collections.unmodifiableList(nodes.subList(low, end));
+		}
+	}
+
+	private SortedMembers<FieldNode> staticFields;
+	private SortedMembers<FieldNode> instanceFields;
+	private SortedMembers<PropertyNode> staticProperties;
+	private SortedMembers<PropertyNode> instanceProperties;
+	private SortedMembers<MethodNode> staticMethods;
+	private SortedMembers<MethodNode> instanceMethods;
+	private Set<URI> uris = new HashSet<>();
+	private Set<String> classNames = new HashSet<>();
+
+	/**
+	 * Source classes in the hierarchy are replaced by the latest nodes with
+	 * the same names from the AST visitor.
+	 */
+	public MemberTable(ClassNode classNode, ASTNodeVisitor astVisitor) {
+		List<FieldNode> fields = new ArrayList<>();
+		List<PropertyNode> properties = new ArrayList<>();
+		List<MethodNode> methods = new ArrayList<>();
+		List<ClassNode> classNodes = new ArrayList<>();
+		classNodes.add(classNode);
+		classNames.add(classNode.getName());
+		for (int i = 0; i < classNodes.size(); i++) {
+			ClassNode current = classNodes.get(i);
+			ClassNode sourceClassNode = astVisitor.getClassNodeByName(current.getName());
+			if (sourceClassNode != null) {
+				current = sourceClassNode;
+				URI uri = astVisitor.getURI(sourceClassNode);
+				if (uri != null) {
+					uris.add(uri);
+				}
+			}
+			fields.addAll(current.getFields());
+			properties.addAll(current.getProperties());
+			methods.addAll(current.getMethods());
+
+			List<ClassNode> superTypes = new ArrayList<>();
+			try {
+				ClassNode superClassNode = current.getSuperClass();
+				if (superClassNode != null) {
+					superTypes.add(superClassNode);
+				}
+				Collections.addAll(superTypes, current.getInterfaces());
+			} catch (NoClassDefFoundError e) {
+				// this is fine, we'll just skip the missing types
+			}
+			for (ClassNode superType : superTypes) {
+				if (classNames.add(superType.getName())) {
+					classNodes.add(superType);
+				}
+			}
+		}
+		staticFields = new SortedMembers<>(filter(fields, FieldNode::isStatic), FieldNode::getName,
+				FieldNode::getName);
+		instanceFields = new SortedMembers<>(filter(fields, field -> !field.isStatic()), FieldNode::getName,
+				FieldNode::getName);
+		staticProperties = new SortedMembers<>(filter(properties, PropertyNode::isStatic), PropertyNode::getName,
+				PropertyNode::getName);
+		instanceProperties = new SortedMembers<>(filter(properties, property -> !property.isStatic()),
+				PropertyNode::getName, PropertyNode::getName);
+		staticMethods = new SortedMembers<>(filter(methods, MethodNode::isStatic), MethodNode::getName,
+				MemberTable::getMethodKey);
+		instanceMethods = new SortedMembers<>(filter(methods, method -> !method.isStatic()), MethodNode::getName,
+				MemberTable::getMethodKey);
+	}
+
+	/**
+	 * Returns the URIs of the source classes in the hierarchy. The table
+	 * needs to be created again when any of them is visited again.
+	 */
+	public Set<URI> getURIs() {
+		return uris;
+	}
+
+	/**
+	 * Returns the names of all classes in the hierarchy.
+	 */
+	public Set<String> getClassNames() {
+		return classNames;
+	}
+
+	public List<FieldNode> getFields(boolean statics, String prefix) {
+		return (statics ? staticFields : instanceFields).find(prefix);
+	}
+
+	public List<PropertyNode> getProperties(boolean statics, String prefix) {
+		return (statics ? staticProperties : instanceProperties).find(prefix);
+	}
+
+	public List<MethodNode> getMethods(boolean statics, String prefix) {
+		return (statics ? staticMethods : instanceMethods).find(prefix);
+	}
+
+	private static <T> List<T> filter(List<T> nodes, Predicate<T> predicate) {
+		return nodes.stream().filter(predicate).collect(Collectors.toList());
+	}
+
+	/**
+	 * An overriding method has the same name and parameter types as the
+	 * method that it overrides.
+	 */
+	private static String getMethodKey(MethodNode method) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(method.getName());
+		builder.append('(');
+		for (Parameter parameter : method.getParameters()) {
+			builder.append(parameter.getType().getName());
+			builder.append(',');
+		}
+		builder.append(')');
+		return builder.toString();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,345 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.ast;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.PropertyNode;
+
+/**
+ * An index of the classes, methods, fields, and properties in the workspace,
+ * updated one URI at a time. Queries of three or more characters use trigram
+ * postings to find candidates, and shorter queries scan the lower case names.
+ * Results are ranked, and only the best matches are returned.
+ */
+public class WorkspaceSymbolIndex {
+	public static class Symbol {
+		private ASTNode node;
+		private String name;
+		private String lowerCaseName;
+		private String lowerCaseSimpleName;
+		private String containerName;
+		private URI uri;
+
+		private Symbol(ASTNode node, String name, String containerName, URI uri) {
+			this.node = node;
+			this.name = name;
+			this.containerName = containerName;
+			this.uri = uri;
+			lowerCaseName = name.toLowerCase();
+			int dotIndex = lowerCaseName.lastIndexOf('.');
+			lowerCaseSimpleName = lowerCaseName.substring(dotIndex + 1);
+		}
+
+		public ASTNode getNode() {
+			return node;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getContainerName() {
+			return containerName;
+		}
+
+		public URI getURI() {
+			return uri;
+		}
+	}
+
+	private static class Match {
+		public Symbol symbol;
+		public int rank;
+
+		public Match(Symbol symbol, int rank) {
+			this.symbol = symbol;
+			this.rank = rank;
+		}
+	}
+
+	private static class IntList {
+		public int[] values = new int[4];
+		public int size = 0;
+
+		public void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size] = value;
+			size++;
+		}
+
+		public IntList copy(int offset) {
+			IntList result = new IntList();
+			result.values = new int[Math.max(4, size)];
+			for (int i = 0; i < size; i++) {
+				result.values[i] = values[i] + offset;
+			}
+			result.size = size;
+			return result;
+		}
+	}
+
+	private static final int RANK_EXACT = 0;
+	private static final int RANK_PREFIX = 1;
+	private static final int RANK_WORD = 2;
+	private static final int RANK_SUBSTRING = 3;
+
+	private static final Comparator<Match> COMPARATOR = (m1, m2) -> {
+		int result = Integer.compare(m1.rank, m2.rank);
+		if (result != 0) {
+			return result;
+		}
+		result = Integer.compare(m1.symbol.name.length(), m2.symbol.name.length());
+		if (result != 0) {
+			return result;
+		}
+		return m1.symbol.name.compareTo(m2.symbol.name);
+	};
+
+	private List<Symbol> symbols = new ArrayList<>();
+	private int removedCount = 0;
+	private Map<URI, IntList> symbolIdsByURI = new HashMap<>();
+	private Map<Long, IntList> trigramPostings = new HashMap<>();
+
+	/**
+	 * Replaces any symbols previously added for the URI with the symbols
+	 * found in the specified nodes.
+	 */
+	public void updateURI(URI uri, List<ASTNode> nodes, ASTNodeVisitor astVisitor) {
+		removeURI(uri);
+		IntList symbolIds = new IntList();
+		for (ASTNode node : nodes) {
+			String name = getSymbolName(node);
+			if (name == null) {
+				continue;
+			}
+			String containerName = null;
+			if (!(node instanceof ClassNode)) {
+				ClassNode classNode = getEnclosingClassNode(node, astVisitor);
+				if (classNode != null) {
+					containerName = classNode.getName();
+				}
+			}
+			int symbolId = addSymbol(new Symbol(node, name, containerName, uri));
+			symbolIds.add(symbolId);
+		}
+		symbolIdsByURI.put(uri, symbolIds);
+	}
+
+	public void removeURI(URI uri) {
+		IntList symbolIds = symbolIdsByURI.remove(uri);
+		if (symbolIds == null) {
+			return;
+		}
+		for (int i = 0; i < symbolIds.size; i++) {
+			symbols.set(symbolIds.values[i], null);
+		}
+		removedCount += symbolIds.size;
+		if (removedCount > 1024 && removedCount > symbols.size() / 2) {
+			compact();
+		}
+	}
+
+	/**
+	 * Adds all symbols from another index, replacing any symbols previously
+	 * added for the same URIs. The other index's trigram postings are reused
+	 * instead of being computed again.
+	 */
+	public void addAll(WorkspaceSymbolIndex other) {
+		other.symbolIdsByURI.keySet().forEach(this::removeURI);
+		int offset = symbols.size();
+		symbols.addAll(other.symbols);
+		removedCount += other.removedCount;
+		other.symbolIdsByURI.forEach((uri, otherSymbolIds) -> {
+			symbolIdsByURI.put(uri, otherSymbolIds.copy(offset));
+		});
+		other.trigramPostings.forEach((trigram, otherPostings) -> {
+			IntList postings = trigramPostings.computeIfAbsent(trigram, key -> new IntList());
+			for (int i = 0; i < otherPostings.size; i++) {
+				postings.add(otherPostings.values[i] + offset);
+			}
+		});
+	}
+
+	public void clear() {
+		symbols.clear();
+		removedCount = 0;
+		symbolIdsByURI.clear();
+		trigramPostings.clear();
+	}
+
+	/**
+	 * Returns up to maxResults symbols with names that contain the query,
+	 * ignoring case. Exact matches rank first, followed by prefix matches,
+	 * matches at the start of a word, and other matches. Within each rank,
+	 * shorter names come first.
+	 */
+	public List<Symbol> search(String query, int maxResults) {
+		String lowerCaseQuery = query.toLowerCase();
+		PriorityQueue<Match> queue = new PriorityQueue<>(COMPARATOR.reversed());
+		if (lowerCaseQuery.length() < 3) {
+			for (Symbol symbol : symbols) {
+				addMatch(symbol, lowerCaseQuery, queue, maxResults);
+			}
+		} else {
+			IntList candidates = null;
+			for (int i = 0; i + 3 <= lowerCaseQuery.length(); i++) {
+				IntList postings = trigramPostings.get(getTrigram(lowerCaseQuery, i));
+				if (postings == null) {
+					return Collections.emptyList();
+				}
+				if (candidates == null || postings.size < candidates.size) {
+					candidates = postings;
+				}
+			}
+			int previousId = -1;
+			for (int i = 0; i < candidates.size; i++) {
+				int symbolId = candidates.values[i];
+				if (symbolId == previousId) {
+					// a trigram may appear more than once in the same name
+					continue;
+				}
+				previousId = symbolId;
+				addMatch(symbols.get(symbolId), lowerCaseQuery, queue, maxResults);
+			}
+		}
+		List<Symbol> result = new ArrayList<>(queue.size());
+		Match[] matches = queue.toArray(new Match[queue.size()]);
+		Arrays.sort(matches, COMPARATOR);
+		for (Match match : matches) {
+			result.add(match.symbol);
+		}
+		return result;
+	}
+
+	private void addMatch(Symbol symbol, String lowerCaseQuery, PriorityQueue<Match> queue, int maxResults) {
+		if (symbol == null) {
+			return;
+		}
+		int index = symbol.lowerCaseName.indexOf(lowerCaseQuery);
+		if (index == -1) {
+			return;
+		}
+		Match match = new Match(symbol, getRank(symbol, lowerCaseQuery, index));
+		if (queue.size() < maxResults) {
+			queue.add(match);
+		} else if (COMPARATOR.compare(match, queue.peek()) < 0) {
+			queue.poll();
+			queue.add(match);
+		}
+	}
+
+	private int getRank(Symbol symbol, String lowerCaseQuery, int index) {
+		String simpleName = symbol.lowerCaseSimpleName;
+		if (simpleName.equals(lowerCaseQuery)) {
+			return RANK_EXACT;
+		}
+		if (simpleName.startsWith(lowerCaseQuery)) {
+			return RANK_PREFIX;
+		}
+		String name = symbol.name;
+		while (index != -1) {
+			if (index == 0) {
+				return RANK_WORD;
+			}
+			if (index >= name.length()) {
+				// lower case conversion changed the length of the name
+				break;
+			}
+			char current = name.charAt(index);
+			char previous = name.charAt(index - 1);
+			if (!Character.isLetterOrDigit(previous)
+					|| (Character.isUpperCase(current) && !Character.isUpperCase(previous))) {
+				return RANK_WORD;
+			}
+			index = symbol.lowerCaseName.indexOf(lowerCaseQuery, index + 1);
+		}
+		return RANK_SUBSTRING;
+	}
+
+	private int addSymbol(Symbol symbol) {
+		int symbolId = symbols.size();
+		symbols.add(symbol);
+		String lowerCaseName = symbol.lowerCaseName;
+		for (int i = 0; i + 3 <= lowerCaseName.length(); i++) {
+			trigramPostings.computeIfAbsent(getTrigram(lowerCaseName, i), key -> new IntList()).add(symbolId);
+		}
+		return symbolId;
+	}
+
+	private void compact() {
+		List<Symbol> oldSymbols = symbols;
+		Map<URI, IntList> oldSymbolIdsByURI = symbolIdsByURI;
+		symbols = new ArrayList<>();
+		removedCount = 0;
+		symbolIdsByURI = new HashMap<>();
+		trigramPostings = new HashMap<>();
+		oldSymbolIdsByURI.forEach((uri, oldSymbolIds) -> {
+			IntList symbolIds = new IntList();
+			for (int i = 0; i < oldSymbolIds.size; i++) {
+				symbolIds.add(addSymbol(oldSymbols.get(oldSymbolIds.values[i])));
+			}
+			symbolIdsByURI.put(uri, symbolIds);
+		});
+	}
+
+	private static long getTrigram(String string, int index) {
+		return ((long) string.charAt(index) << 32) | ((long) string.charAt(index + 1) << 16)
+				| string.charAt(index + 2);
+	}
+
+	private static String getSymbolName(ASTNode node) {
+		if (node instanceof ClassNode) {
+			return ((ClassNode) node).getName();
+		} else if (node instanceof MethodNode) {
+			return ((MethodNode) node).getName();
+		} else if (node instanceof FieldNode) {
+			return ((FieldNode) node).getName();
+		} else if (node instanceof PropertyNode) {
+			return ((PropertyNode) node).getName();
+		}
+		return null;
+	}
+
+	private static ClassNode getEnclosingClassNode(ASTNode node, ASTNodeVisitor astVisitor) {
+		ASTNode current = astVisitor.getParent(node);
+		while (current != null) {
+			if (current instanceof ClassNode) {
+				return (ClassNode) current;
+			}
+			current = astVisitor.getParent(current);
+		}
+		return null;
+	}
+}
\ No newline at end of file
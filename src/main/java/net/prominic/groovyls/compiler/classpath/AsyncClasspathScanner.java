@@ -0,0 +1,127 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.classpath;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans the classpath on a background thread, so that compiling and requests
+ * don't need to wait for the scan. The new index is published when the scan
+ * finishes, unless another scan has been started in the meantime.
+ */
+public class AsyncClasspathScanner {
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private ThreadPoolExecutor executor;
+	private ClasspathScanCache cache;
+	private ClasspathIndex index;
+	private CompletableFuture<ClasspathIndex> pendingScan;
+	private int generation = 0;
+	private int publishedGeneration = 0;
+
+	public AsyncClasspathScanner(ClasspathScanCache cache) {
+		this.cache = cache;
+		executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "groovyls-classpath");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Discards the current index, and starts scanning the JDK and the
+	 * classpath entries.
+	 */
+	public synchronized void scan(List<String> classpathList) {
+		generation++;
+		int scanGeneration = generation;
+		index = null;
+		pendingScan = CompletableFuture.supplyAsync(() -> {
+			if (!isCurrent(scanGeneration)) {
+				// a newer scan is queued
+				return null;
+			}
+			return cache.scan(classpathList);
+		}, executor).handle((result, e) -> {
+			if (e != null) {
+				System.err.println("Unexpected exception in language server when scanning the classpath.");
+				e.printStackTrace(System.err);
+			}
+			publish(scanGeneration, result);
+			return result;
+		});
+	}
+
+	/**
+	 * Discards the current index, and any scan that is still running.
+	 */
+	public synchronized void clear() {
+		generation++;
+		publishedGeneration = generation;
+		index = null;
+		pendingScan = null;
+	}
+
+	/**
+	 * Returns the index from the latest scan, or null if it hasn't finished.
+	 */
+	public synchronized ClasspathIndex getIndex() {
+		return index;
+	}
+
+	public synchronized boolean isPending() {
+		return publishedGeneration != generation;
+	}
+
+	/**
+	 * Blocks until the latest scan has finished.
+	 */
+	public void waitForScan() {
+		CompletableFuture<ClasspathIndex> scan = null;
+		synchronized (this) {
+			scan = pendingScan;
+		}
+		if (scan != null) {
+			scan.join();
+		}
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private synchronized boolean isCurrent(int scanGeneration) {
+		return scanGeneration == generation;
+	}
+
+	private synchronized void publish(int scanGeneration, ClasspathIndex result) {
+		if (scanGeneration != generation) {
+			return;
+		}
+		index = result;
+		publishedGeneration = scanGeneration;
+	}
+}
\ No newline at end of file
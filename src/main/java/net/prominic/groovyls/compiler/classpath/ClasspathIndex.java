@@ -0,0 +1,318 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.classpath;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.PackageInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * The classes and packages found on the classpath, extracted from a ClassGraph
+ * scan so that the scan result doesn't need to be kept in memory. An index
+ * may be written to a file and read again later, without scanning.
+ *
+ * Classes are stored in parallel arrays sorted by simple name, so that they
+ * may be found by a prefix of the simple name with a binary search.
+ */
+public class ClasspathIndex {
+	public enum Kind {
+		CLASS, INTERFACE, ENUM
+	}
+
+	public static class ClassEntry {
+		private String name;
+		private String simpleName;
+		private String packageName;
+		private Kind kind;
+
+		public ClassEntry(String name, String simpleName, String packageName, Kind kind) {
+			this.name = name;
+			this.simpleName = simpleName;
+			this.packageName = packageName;
+			this.kind = kind;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getSimpleName() {
+			return simpleName;
+		}
+
+		public String getPackageName() {
+			return packageName;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+	}
+
+	private static final int FORMAT_VERSION = 1;
+	private static final Kind[] KINDS = Kind.values();
+	private static final Comparator<ClassEntry> COMPARATOR = Comparator.comparing(ClassEntry::getSimpleName)
+			.thenComparing(ClassEntry::getName);
+
+	private String[] names;
+	private String[] simpleNames;
+	// many classes share the same package name instance
+	private String[] classPackageNames;
+	private byte[] kinds;
+	private List<String> packageNames;
+	private PackageIndex packageIndex;
+
+	public ClasspathIndex(List<ClassEntry> classes, List<String> packageNames) {
+		List<ClassEntry> sortedClasses = new ArrayList<>(classes);
+		sortedClasses.sort(COMPARATOR);
+		int size = sortedClasses.size();
+		names = new String[size];
+		simpleNames = new String[size];
+		classPackageNames = new String[size];
+		kinds = new byte[size];
+		Map<String, String> internedPackageNames = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			ClassEntry entry = sortedClasses.get(i);
+			names[i] = entry.name;
+			simpleNames[i] = entry.simpleName;
+			classPackageNames[i] = internedPackageNames.computeIfAbsent(entry.packageName, key -> key);
+			kinds[i] = (byte) entry.kind.ordinal();
+		}
+		this.packageNames = Collections.unmodifiableList(new ArrayList<>(packageNames));
+	}
+
+	/**
+	 * Returns every class, sorted by simple name.
+	 */
+	public List<ClassEntry> getClasses() {
+		return new AbstractList<ClassEntry>() {
+			@Override
+			public ClassEntry get(int index) {
+				return getClassEntry(index);
+			}
+
+			@Override
+			public int size() {
+				return names.length;
+			}
+		};
+	}
+
+	public List<String> getPackageNames() {
+		return packageNames;
+	}
+
+	/**
+	 * Returns the package tree of this index, which is created the first time
+	 * that it is needed.
+	 */
+	public synchronized PackageIndex getPackageIndex() {
+		if (packageIndex == null) {
+			packageIndex = new PackageIndex(this);
+		}
+		return packageIndex;
+	}
+
+	/**
+	 * Returns up to maxResults classes with simple names that start with the
+	 * prefix, sorted by simple name. If the prefix contains more than one
+	 * upper case letter, classes that match each of its camel case humps,
+	 * like HashMap for HM or HaMa, are returned after the prefix matches.
+	 */
+	public List<ClassEntry> findClasses(String prefix, int maxResults) {
+		List<ClassEntry> result = new ArrayList<>();
+		for (int i = findFirst(prefix); i < names.length && result.size() < maxResults; i++) {
+			if (!simpleNames[i].startsWith(prefix)) {
+				break;
+			}
+			result.add(getClassEntry(i));
+		}
+		int firstHumpLength = getFirstHumpLength(prefix);
+		if (firstHumpLength == prefix.length()) {
+			return result;
+		}
+		// every camel case match starts with the first hump
+		String firstHump = prefix.substring(0, firstHumpLength);
+		for (int i = findFirst(firstHump); i < names.length && result.size() < maxResults; i++) {
+			String simpleName = simpleNames[i];
+			if (!simpleName.startsWith(firstHump)) {
+				break;
+			}
+			if (!simpleName.startsWith(prefix) && matchesCamelCase(prefix, simpleName)) {
+				result.add(getClassEntry(i));
+			}
+		}
+		return result;
+	}
+
+	public static ClasspathIndex fromScanResult(ScanResult scanResult) {
+		List<ClassEntry> classes = new ArrayList<>();
+		for (ClassInfo classInfo : scanResult.getAllClasses()) {
+			Kind kind = Kind.CLASS;
+			if (classInfo.isInterface()) {
+				kind = Kind.INTERFACE;
+			} else if (classInfo.isEnum()) {
+				kind = Kind.ENUM;
+			}
+			String packageName = classInfo.getPackageName();
+			if (packageName == null) {
+				packageName = "";
+			}
+			classes.add(new ClassEntry(classInfo.getName(), classInfo.getSimpleName(), packageName, kind));
+		}
+		List<String> packageNames = new ArrayList<>();
+		for (PackageInfo packageInfo : scanResult.getPackageInfo()) {
+			packageNames.add(packageInfo.getName());
+		}
+		return new ClasspathIndex(classes, packageNames);
+	}
+
+	/**
+	 * Combines several indexes. If the same class appears in more than one
+	 * index, the first one is used, like a class loader would.
+	 */
+	public static ClasspathIndex merge(List<ClasspathIndex> indexes) {
+		List<ClassEntry> classes = new ArrayList<>();
+		Set<String> classNames = new HashSet<>();
+		Set<String> packageNames = new TreeSet<>();
+		for (ClasspathIndex index : indexes) {
+			for (int i = 0; i < index.names.length; i++) {
+				if (classNames.add(index.names[i])) {
+					classes.add(index.getClassEntry(i));
+				}
+			}
+			packageNames.addAll(index.packageNames);
+		}
+		return new ClasspathIndex(classes, new ArrayList<>(packageNames));
+	}
+
+	public void write(DataOutputStream output) throws IOException {
+		output.writeInt(FORMAT_VERSION);
+		output.writeInt(packageNames.size());
+		for (String packageName : packageNames) {
+			output.writeUTF(packageName);
+		}
+		output.writeInt(names.length);
+		for (int i = 0; i < names.length; i++) {
+			output.writeUTF(names[i]);
+			output.writeUTF(simpleNames[i]);
+			output.writeUTF(classPackageNames[i]);
+			output.writeByte(kinds[i]);
+		}
+	}
+
+	public static ClasspathIndex read(DataInputStream input) throws IOException {
+		if (input.readInt() != FORMAT_VERSION) {
+			throw new IOException("Unknown classpath index format");
+		}
+		int packageCount = input.readInt();
+		List<String> packageNames = new ArrayList<>(packageCount);
+		for (int i = 0; i < packageCount; i++) {
+			packageNames.add(input.readUTF());
+		}
+		int classCount = input.readInt();
+		List<ClassEntry> classes = new ArrayList<>(classCount);
+		for (int i = 0; i < classCount; i++) {
+			String name = input.readUTF();
+			String simpleName = input.readUTF();
+			String packageName = input.readUTF();
+			int kind = input.readByte();
+			if (kind < 0 || kind >= KINDS.length) {
+				throw new IOException("Unknown class kind: " + kind);
+			}
+			classes.add(new ClassEntry(name, simpleName, packageName, KINDS[kind]));
+		}
+		return new ClasspathIndex(classes, packageNames);
+	}
+
+	private ClassEntry getClassEntry(int index) {
+		return new ClassEntry(names[index], simpleNames[index], classPackageNames[index], KINDS[kinds[index]]);
+	}
+
+	/**
+	 * Returns the index of the first simple name that is greater than or
+	 * equal to the prefix.
+	 */
+	private int findFirst(String prefix) {
+		int low = 0;
+		int high = simpleNames.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (simpleNames[middle].compareTo(prefix) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static int getFirstHumpLength(String pattern) {
+		int result = 1;
+		while (result < pattern.length() && !Character.isUpperCase(pattern.charAt(result))) {
+			result++;
+		}
+		return Math.min(result, pattern.length());
+	}
+
+	/**
+	 * Each hump of the pattern, starting with an upper case letter, must
+	 * match the start of a hump in the name, in the same order. The first
+	 * hump must match the start of the name.
+	 */
+	static boolean matchesCamelCase(String pattern, String name) {
+		int nameIndex = 0;
+		int patternIndex = 0;
+		while (patternIndex < pattern.length()) {
+			int humpLength = getFirstHumpLength(pattern.substring(patternIndex));
+			if (patternIndex == 0) {
+				if (!name.regionMatches(0, pattern, 0, humpLength)) {
+					return false;
+				}
+				nameIndex = humpLength;
+			} else {
+				while (nameIndex < name.length() && !(Character.isUpperCase(name.charAt(nameIndex))
+						&& name.regionMatches(nameIndex, pattern, patternIndex, humpLength))) {
+					nameIndex++;
+				}
+				if (nameIndex == name.length()) {
+					return false;
+				}
+				nameIndex += humpLength;
+			}
+			patternIndex += humpLength;
+		}
+		return true;
+	}
+}
\ No newline at end of file
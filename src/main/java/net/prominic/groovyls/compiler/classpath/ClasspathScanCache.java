@@ -0,0 +1,237 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.classpath;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassGraphException;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Scans the JDK and each classpath entry separately with ClassGraph, and
+ * merges the results. The JDK is scanned only once per JVM, and a jar is
+ * scanned again only when its size or modification time changes. Scan results
+ * are also saved in a cache directory, keyed by a fingerprint of the JDK or of
+ * the jar, so that they may be reused after a restart.
+ */
+public class ClasspathScanCache {
+	private static class JarIndex {
+		public long size;
+		public long lastModified;
+		public ClasspathIndex index;
+	}
+
+	private static final String FILE_EXTENSION = ".idx";
+	private static final int MAX_CACHED_FILES = 256;
+
+	// the JDK is the same for every compilation unit
+	private static ClasspathIndex jdkIndex;
+
+	private Path cacheDirectory;
+	private Map<String, JarIndex> jarIndexes = new HashMap<>();
+
+	/**
+	 * @param cacheDirectory where scan results are saved. If null, scan
+	 *                       results are kept in memory only.
+	 */
+	public ClasspathScanCache(Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Returns the classes and packages of the JDK and of the classpath
+	 * entries. Returns null if the JDK can't be scanned.
+	 */
+	public synchronized ClasspathIndex scan(List<String> classpathList) {
+		ClasspathIndex jdk = getJdkIndex();
+		if (jdk == null) {
+			return null;
+		}
+		List<ClasspathIndex> indexes = new ArrayList<>();
+		indexes.add(jdk);
+		Map<String, JarIndex> newJarIndexes = new HashMap<>();
+		for (String entry : classpathList) {
+			File file = new File(entry).getAbsoluteFile();
+			long size = file.length();
+			long lastModified = file.lastModified();
+			JarIndex jarIndex = jarIndexes.get(file.getPath());
+			// a directory's modification time doesn't change when a nested
+			// file changes, so directories are always scanned
+			if (jarIndex == null || jarIndex.size != size || jarIndex.lastModified != lastModified
+					|| file.isDirectory()) {
+				jarIndex = new JarIndex();
+				jarIndex.size = size;
+				jarIndex.lastModified = lastModified;
+				jarIndex.index = scanClasspathEntry(file);
+			}
+			if (jarIndex.index == null) {
+				continue;
+			}
+			newJarIndexes.put(file.getPath(), jarIndex);
+			indexes.add(jarIndex.index);
+		}
+		// forget the jars that were removed from the classpath
+		jarIndexes = newJarIndexes;
+		return ClasspathIndex.merge(indexes);
+	}
+
+	protected ClasspathIndex scanClasspathEntry(File file) {
+		ClassGraph classGraph = new ClassGraph().overrideClasspath(file.getPath()).enableClassInfo();
+		if (file.isDirectory()) {
+			return scan(classGraph);
+		}
+		return load(getJarFingerprint(file), classGraph);
+	}
+
+	String getJarFingerprint(File file) {
+		return getFingerprint(file.getPath() + "\t" + file.length() + "\t" + file.lastModified());
+	}
+
+	private ClasspathIndex getJdkIndex() {
+		synchronized (ClasspathScanCache.class) {
+			if (jdkIndex == null) {
+				String fingerprint = getFingerprint(
+						System.getProperty("java.home") + "\t" + System.getProperty("java.version"));
+				// the parent of the compilation unit's class loader
+				ClassLoader classLoader = ClassLoader.getSystemClassLoader().getParent();
+				jdkIndex = load(fingerprint, new ClassGraph().overrideClassLoaders(classLoader).enableClassInfo()
+						.enableSystemJarsAndModules());
+			}
+			return jdkIndex;
+		}
+	}
+
+	private ClasspathIndex load(String fingerprint, ClassGraph classGraph) {
+		Path cacheFile = null;
+		if (cacheDirectory != null) {
+			cacheFile = cacheDirectory.resolve(fingerprint + FILE_EXTENSION);
+			ClasspathIndex cachedIndex = readIndex(cacheFile);
+			if (cachedIndex != null) {
+				return cachedIndex;
+			}
+		}
+		ClasspathIndex index = scan(classGraph);
+		if (index != null && cacheFile != null) {
+			writeIndex(index, cacheFile);
+		}
+		return index;
+	}
+
+	private ClasspathIndex scan(ClassGraph classGraph) {
+		try (ScanResult scanResult = classGraph.scan()) {
+			return ClasspathIndex.fromScanResult(scanResult);
+		} catch (ClassGraphException e) {
+			return null;
+		}
+	}
+
+	private String getFingerprint(String key) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+			StringBuilder result = new StringBuilder();
+			for (byte b : hash) {
+				result.append(String.format("%02x", b));
+			}
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private ClasspathIndex readIndex(Path cacheFile) {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+		try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(Files.newInputStream(cacheFile))))) {
+			ClasspathIndex result = ClasspathIndex.read(input);
+			// the least recently used files are deleted first
+			Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+			return result;
+		} catch (IOException e) {
+			System.err.println("Failed to read classpath index: " + cacheFile);
+			return null;
+		}
+	}
+
+	private void writeIndex(ClasspathIndex index, Path cacheFile) {
+		Path tempFile = null;
+		try {
+			Files.createDirectories(cacheDirectory);
+			tempFile = Files.createTempFile(cacheDirectory, null, ".tmp");
+			try (DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+				index.write(output);
+			}
+			// another language server may be reading the same file
+			Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			tempFile = null;
+			deleteOldFiles();
+		} catch (IOException e) {
+			System.err.println("Failed to write classpath index: " + cacheFile);
+		} finally {
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private void deleteOldFiles() throws IOException {
+		List<Path> files = null;
+		try (Stream<Path> stream = Files.list(cacheDirectory)) {
+			files = stream.filter(file -> file.toString().endsWith(FILE_EXTENSION)).collect(Collectors.toList());
+		}
+		if (files.size() <= MAX_CACHED_FILES) {
+			return;
+		}
+		files.sort(Comparator.comparing(file -> file.toFile().lastModified()));
+		for (int i = 0; i < files.size() - MAX_CACHED_FILES; i++) {
+			Files.deleteIfExists(files.get(i));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.classpath;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex.ClassEntry;
+
+/**
+ * The packages of a classpath index as a tree, with the classes of each
+ * package stored in its node. Completing a package-qualified name needs only
+ * the children and classes of a single node.
+ */
+public class PackageIndex {
+	public static class PackageNode {
+		private String name;
+		private TreeMap<String, PackageNode> children = new TreeMap<>();
+		private List<ClassEntry> allClasses;
+		private int[] classIds = new int[0];
+		private int classCount = 0;
+
+		private PackageNode(String name, List<ClassEntry> allClasses) {
+			this.name = name;
+			this.allClasses = allClasses;
+		}
+
+		/**
+		 * Returns the fully-qualified name of the package, or an empty string
+		 * for the root of the tree.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the sub-packages with simple names that start with the
+		 * prefix, sorted by name.
+		 */
+		public List<PackageNode> findChildren(String prefix) {
+			List<PackageNode> result = new ArrayList<>();
+			for (Map.Entry<String, PackageNode> entry : children.tailMap(prefix).entrySet()) {
+				if (!entry.getKey().startsWith(prefix)) {
+					break;
+				}
+				result.add(entry.getValue());
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the classes in this package, sorted by simple name.
+		 */
+		public List<ClassEntry> getClasses() {
+			return new AbstractList<ClassEntry>() {
+				@Override
+				public ClassEntry get(int index) {
+					return allClasses.get(classIds[index]);
+				}
+
+				@Override
+				public int size() {
+					return classCount;
+				}
+			};
+		}
+
+		/**
+		 * Returns the classes in this package with simple names that start
+		 * with the prefix, sorted by simple name.
+		 */
+		public List<ClassEntry> findClasses(String prefix) {
+			List<ClassEntry> result = new ArrayList<>();
+			for (ClassEntry classEntry : getClasses()) {
+				if (classEntry.getSimpleName().startsWith(prefix)) {
+					result.add(classEntry);
+				}
+			}
+			return result;
+		}
+
+		private void addClass(int classId) {
+			if (classCount == classIds.length) {
+				classIds = Arrays.copyOf(classIds, Math.max(4, classCount * 2));
+			}
+			classIds[classCount] = classId;
+			classCount++;
+		}
+
+		private void trim() {
+			classIds = Arrays.copyOf(classIds, classCount);
+			children.values().forEach(PackageNode::trim);
+		}
+	}
+
+	private PackageNode root;
+
+	public PackageIndex(ClasspathIndex classpathIndex) {
+		List<ClassEntry> classes = classpathIndex.getClasses();
+		root = new PackageNode("", classes);
+		for (String packageName : classpathIndex.getPackageNames()) {
+			getOrCreatePackage(packageName, classes);
+		}
+		// classes are sorted by simple name, so each package's classes will
+		// be sorted too
+		for (int i = 0; i < classes.size(); i++) {
+			getOrCreatePackage(classes.get(i).getPackageName(), classes).addClass(i);
+		}
+		root.trim();
+	}
+
+	public PackageNode getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the node of a package with the specified fully-qualified name,
+	 * or null if there is no such package.
+	 */
+	public PackageNode findPackage(String packageName) {
+		if (packageName.isEmpty()) {
+			return root;
+		}
+		PackageNode current = root;
+		int startIndex = 0;
+		while (current != null) {
+			int dotIndex = packageName.indexOf('.', startIndex);
+			if (dotIndex == -1) {
+				return current.children.get(packageName.substring(startIndex));
+			}
+			current = current.children.get(packageName.substring(startIndex, dotIndex));
+			startIndex = dotIndex + 1;
+		}
+		return null;
+	}
+
+	private PackageNode getOrCreatePackage(String packageName, List<ClassEntry> classes) {
+		if (packageName.isEmpty()) {
+			return root;
+		}
+		PackageNode current = root;
+		int startIndex = 0;
+		while (startIndex <= packageName.length()) {
+			int dotIndex = packageName.indexOf('.', startIndex);
+			if (dotIndex == -1) {
+				dotIndex = packageName.length();
+			}
+			String simpleName = packageName.substring(startIndex, dotIndex);
+			String name = packageName.substring(0, dotIndex);
+			current = current.children.computeIfAbsent(simpleName, key -> new PackageNode(name, classes));
+			startIndex = dotIndex + 1;
+		}
+		return current;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+
+/**
+ * Runs compilation and requests on a single worker thread. Changed URIs are
+ * coalesced, and they are compiled together after a delay that adapts to the
+ * recent compile durations. A request compiles any pending changes first, so
+ * that it always sees the latest contents.
+ *
+ * A newer change cancels a scheduled compile that is already running, and its
+ * URIs are compiled again together with the newer change. Compiles that run
+ * before a request are never canceled.
+ */
+public class CompileScheduler {
+	private static class CompileCancelChecker implements CancelChecker {
+		private volatile boolean canceled = false;
+
+		public void cancel() {
+			canceled = true;
+		}
+
+		@Override
+		public void checkCanceled() {
+			if (canceled) {
+				throw new CancellationException();
+			}
+		}
+	}
+
+	private static final long MIN_DELAY_MS = 25;
+	private static final long MAX_DELAY_MS = 500;
+	private static final long INITIAL_DELAY_MS = 100;
+	private static final double DURATION_WEIGHT = 0.3;
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private ScheduledThreadPoolExecutor executor;
+	private BiConsumer<Set<URI>, CancelChecker> compiler;
+	private Set<URI> pendingURIs = new HashSet<>();
+	private ScheduledFuture<?> pendingCompile;
+	private CompileCancelChecker runningCompile;
+	private long firstPendingTime;
+	private double averageDurationMs = INITIAL_DELAY_MS;
+
+	/**
+	 * @param compiler compiles a set of changed URIs. Always called on the
+	 *                 worker thread. It should call checkCanceled() on the
+	 *                 cancel checker when it is safe to stop.
+	 */
+	public CompileScheduler(BiConsumer<Set<URI>, CancelChecker> compiler) {
+		this.compiler = compiler;
+		executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "groovyls-compile");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		executor.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Marks a URI as changed, and schedules a compile after the current
+	 * delay. More changes before the compile starts restart the delay, up to a
+	 * limit, so that a burst of edits is compiled only once.
+	 */
+	public synchronized void schedule(URI uri) {
+		long now = System.currentTimeMillis();
+		if (pendingURIs.isEmpty()) {
+			firstPendingTime = now;
+		}
+		pendingURIs.add(uri);
+		if (runningCompile != null) {
+			runningCompile.cancel();
+			runningCompile = null;
+		}
+		if (pendingCompile != null) {
+			pendingCompile.cancel(false);
+		}
+		long delay = getDelay();
+		// don't keep waiting forever while the user types continuously
+		long maxWait = firstPendingTime + MAX_DELAY_MS * 2 - now;
+		delay = Math.max(0, Math.min(delay, maxWait));
+		pendingCompile = executor.schedule(() -> {
+			compilePending(true);
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized boolean isPending(URI uri) {
+		return pendingURIs.contains(uri);
+	}
+
+	/**
+	 * Runs a request on the worker thread after any pending changes have been
+	 * compiled.
+	 */
+	public <T> CompletableFuture<T> request(Supplier<CompletableFuture<T>> request) {
+		return CompletableFuture.supplyAsync(() -> {
+			compilePending(false);
+			return request.get();
+		}, executor).thenCompose(result -> result);
+	}
+
+	/**
+	 * Runs a task on the worker thread after any pending changes have been
+	 * compiled.
+	 */
+	public CompletableFuture<Void> execute(Runnable task) {
+		return CompletableFuture.runAsync(() -> {
+			compilePending(false);
+			task.run();
+		}, executor);
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The delay before compiling follows the average compile duration. There
+	 * is no point in compiling more often than a compile can finish.
+	 */
+	private long getDelay() {
+		long delay = Math.round(averageDurationMs);
+		return Math.max(MIN_DELAY_MS, Math.min(MAX_DELAY_MS, delay));
+	}
+
+	private void compilePending(boolean cancelable) {
+		Set<URI> uris = null;
+		CompileCancelChecker cancelChecker = new CompileCancelChecker();
+		synchronized (this) {
+			if (pendingURIs.isEmpty()) {
+				return;
+			}
+			uris = pendingURIs;
+			pendingURIs = new HashSet<>();
+			if (pendingCompile != null) {
+				pendingCompile.cancel(false);
+				pendingCompile = null;
+			}
+			if (cancelable) {
+				runningCompile = cancelChecker;
+			}
+		}
+		long startTime = System.nanoTime();
+		try {
+			compiler.accept(uris, cancelChecker);
+		} catch (CancellationException e) {
+			// a newer change has already scheduled another compile, so these
+			// URIs will be compiled with it
+			synchronized (this) {
+				pendingURIs.addAll(uris);
+			}
+			// the duration of a canceled compile isn't useful for the delay
+			return;
+		} catch (Exception e) {
+			System.err.println("Unexpected exception in language server when compiling Groovy.");
+			e.printStackTrace(System.err);
+		} finally {
+			synchronized (this) {
+				if (runningCompile == cancelChecker) {
+					runningCompile = null;
+				}
+			}
+		}
+		double durationMs = (System.nanoTime() - startTime) / 1000000.0;
+		synchronized (this) {
+			averageDurationMs = DURATION_WEIGHT * durationMs + (1.0 - DURATION_WEIGHT) * averageDurationMs;
+		}
+	}
+}
\ No newline at end of file
@@ -20,6 +20,8 @@
 package net.prominic.groovyls.compiler.control;
 
 import groovy.lang.GroovyClassLoader;
+import net.prominic.groovyls.compiler.control.io.StringReaderSourceWithURI;
+import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.CompileUnit;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.control.CompilationUnit;
@@ -27,6 +29,8 @@ import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.tools.GroovyClass;
 
+import java.net.URI;
+import java.nio.file.Paths;
 import java.security.CodeSource;
 import java.util.Collection;
 import java.util.Collections;
@@ -67,10 +71,41 @@ public class GroovyLSCompilationUnit extends CompilationUnit {
 			}
 		}
 		LanguageServerErrorCollector lsErrorCollector = (LanguageServerErrorCollector) errorCollector;
-		lsErrorCollector.clear();
+		lsErrorCollector.clear(sourceUnitsToRemove);
 	}
 
 	public void removeSource(SourceUnit sourceUnit) {
 		removeSources(Collections.singletonList(sourceUnit));
 	}
+
+	/**
+	 * Creates a throw-away compilation unit that contains only the specified
+	 * contents for a single URI. This compilation unit is not modified. It
+	 * shares the class loader and resolved classpath classes of this
+	 * compilation unit, and classes from its other source units may be
+	 * resolved without compiling them again.
+	 */
+	public GroovyLSCompilationUnit createScratchCompilationUnit(URI uri, String contents) {
+		GroovyLSCompilationUnit scratchUnit = new GroovyLSCompilationUnit(configuration, null, classLoader);
+		scratchUnit.setClassNodeResolver(getClassNodeResolver());
+		CompileUnit scratchAST = scratchUnit.getAST();
+		for (ModuleNode module : ast.getModules()) {
+			SourceUnit sourceUnit = module.getContext();
+			if (sourceUnit != null && uri.equals(sourceUnit.getSource().getURI())) {
+				continue;
+			}
+			for (ClassNode classNode : module.getClasses()) {
+				// duplicate classes in other source units would be reported
+				// as errors
+				if (scratchAST.getClass(classNode.getName()) == null) {
+					scratchAST.addClass(classNode);
+				}
+			}
+		}
+		SourceUnit sourceUnit = new SourceUnit(Paths.get(uri).toString(),
+				new StringReaderSourceWithURI(contents, uri, configuration), configuration, classLoader,
+				scratchUnit.getErrorCollector());
+		scratchUnit.addSource(sourceUnit);
+		return scratchUnit;
+	}
 }
\ No newline at end of file
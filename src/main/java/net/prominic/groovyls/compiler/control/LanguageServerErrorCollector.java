@@ -19,9 +19,18 @@
 ////////////////////////////////////////////////////////////////////////////////
 package net.prominic.groovyls.compiler.control;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.messages.Message;
+import org.codehaus.groovy.control.messages.SyntaxErrorMessage;
+import org.codehaus.groovy.control.messages.WarningMessage;
 
 /**
  * A special ErrorCollector for language servers that can clear all errors and
@@ -34,6 +43,18 @@ public class LanguageServerErrorCollector extends ErrorCollector {
         super(configuration);
     }
 
+    // source units may be parsed in parallel
+
+    @Override
+    public synchronized void addErrorAndContinue(Message message) {
+        super.addErrorAndContinue(message);
+    }
+
+    @Override
+    public synchronized void addWarning(WarningMessage message) {
+        super.addWarning(message);
+    }
+
     public void clear() {
         if (errors != null) {
             errors.clear();
@@ -43,6 +64,36 @@ public class LanguageServerErrorCollector extends ErrorCollector {
         }
     }
 
+    /**
+     * Clears the errors from the specified source units, and any errors that
+     * don't belong to a source unit. Errors from other source units are kept
+     * because those source units won't be compiled again.
+     */
+    public void clear(Collection<SourceUnit> sourceUnits) {
+        if (errors != null) {
+            Set<String> sourceLocators = new HashSet<>();
+            for (SourceUnit sourceUnit : sourceUnits) {
+                sourceLocators.add(sourceUnit.getName());
+            }
+            errors.removeIf(message -> !(message instanceof SyntaxErrorMessage)
+                    || sourceLocators.contains(((SyntaxErrorMessage) message).getCause().getSourceLocator()));
+        }
+        if (warnings != null) {
+            warnings.clear();
+        }
+    }
+
+    /**
+     * Removes the errors that match the filter, starting at the specified
+     * index. Errors before that index are kept.
+     */
+    public void removeErrors(int fromIndex, Predicate<Message> filter) {
+        if (errors == null || fromIndex >= errors.size()) {
+            return;
+        }
+        errors.subList(fromIndex, errors.size()).removeIf(filter);
+    }
+
     @Override
     protected void failIfErrors() throws CompilationFailedException {
         // don't fail
@@ -0,0 +1,447 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.InnerClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.classgen.VariableScopeVisitor;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.GenericsVisitor;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.ResolveVisitor;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.StaticImportVisitor;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
+import org.codehaus.groovy.control.messages.Message;
+import org.codehaus.groovy.control.messages.SyntaxErrorMessage;
+import org.codehaus.groovy.syntax.SyntaxException;
+import org.codehaus.groovy.transform.trait.Traits;
+import org.eclipse.lsp4j.Position;
+
+import net.prominic.groovyls.compiler.control.io.StringReaderSourceWithURI;
+import net.prominic.lsp.utils.LineOffsets;
+
+/**
+ * Replaces the body of a single method in a source unit that has already
+ * been compiled, when an edit is contained within that body and doesn't add
+ * or remove any lines. Only the new body is parsed, and only that method is
+ * analyzed again, so the cost of the edit depends on the size of the method
+ * instead of the size of the file.
+ *
+ * Methods that may be modified by AST transformations, including methods in
+ * annotated classes and all methods when there are global transformations,
+ * or that contain inner classes, are never spliced, and the whole file must
+ * be compiled again.
+ */
+public class MethodBodySplicer {
+	public static class Splice {
+		private MethodNode method;
+		private Statement oldCode;
+
+		private Splice(MethodNode method, Statement oldCode) {
+			this.method = method;
+			this.oldCode = oldCode;
+		}
+
+		public MethodNode getMethod() {
+			return method;
+		}
+
+		public Statement getOldCode() {
+			return oldCode;
+		}
+	}
+
+	private static final String WRAPPER_CLASS_NAME = "GroovyLSMethodBodySplice";
+	private static final String WRAPPER_METHOD_NAME = "splice";
+	private static final String[] GLOBAL_TRANSFORMATION_RESOURCES = {
+			"META-INF/services/org.codehaus.groovy.transform.ASTTransformation",
+			"META-INF/groovy/org.codehaus.groovy.transform.ASTTransformation" };
+	// registered by Groovy itself, but it only handles @Grab before the
+	// conversion phase
+	private static final String GRAB_TRANSFORMATION = "groovy.grape.GrabAnnotationTransformation";
+
+	private static final Map<ClassLoader, Set<String>> globalTransformationsByLoader = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	private CompilationUnit compilationUnit;
+
+	public MethodBodySplicer(CompilationUnit compilationUnit) {
+		this.compilationUnit = compilationUnit;
+	}
+
+	/**
+	 * Replaces the body of the method that contains the difference between
+	 * the current and new contents of a source unit, and analyzes the new
+	 * body. The source unit must have completed the canonicalization phase,
+	 * and its contents must be a string.
+	 *
+	 * @return the method and its old body, or null if the edit can't be
+	 *         spliced, and the source unit was not modified
+	 */
+	public Splice splice(SourceUnit sourceUnit, String newContents) {
+		ModuleNode moduleNode = sourceUnit.getAST();
+		if (moduleNode == null || sourceUnit.getPhase() < Phases.CANONICALIZATION
+				|| !(sourceUnit.getSource() instanceof StringReaderSourceWithURI)
+				|| !(sourceUnit.getErrorCollector() instanceof LanguageServerErrorCollector)) {
+			return null;
+		}
+		StringReaderSourceWithURI source = (StringReaderSourceWithURI) sourceUnit.getSource();
+		String oldContents = source.getString();
+		int oldLength = oldContents.length();
+		int newLength = newContents.length();
+		int prefixLength = 0;
+		int maxLength = Math.min(oldLength, newLength);
+		while (prefixLength < maxLength && oldContents.charAt(prefixLength) == newContents.charAt(prefixLength)) {
+			prefixLength++;
+		}
+		if (prefixLength == oldLength && prefixLength == newLength) {
+			return null;
+		}
+		int suffixLength = 0;
+		int maxSuffixLength = maxLength - prefixLength;
+		while (suffixLength < maxSuffixLength && oldContents.charAt(oldLength - suffixLength - 1) == newContents
+				.charAt(newLength - suffixLength - 1)) {
+			suffixLength++;
+		}
+		int oldChangeEnd = oldLength - suffixLength;
+		int newChangeEnd = newLength - suffixLength;
+		if (countLines(oldContents, prefixLength, oldChangeEnd) != countLines(newContents, prefixLength,
+				newChangeEnd)) {
+			// the positions of every node after the edit would change
+			return null;
+		}
+
+		LineOffsets lineOffsets = new LineOffsets(oldContents);
+		int changeEndLine = lineOffsets.getPosition(oldChangeEnd).getLine() + 1;
+		MethodNode method = findMethod(moduleNode, lineOffsets, prefixLength, oldChangeEnd, changeEndLine);
+		if (method == null || hasGlobalTransformations()) {
+			return null;
+		}
+		Statement oldCode = method.getCode();
+		int bodyStart = getOffset(lineOffsets, oldCode.getLineNumber(), oldCode.getColumnNumber());
+		int bodyEnd = getOffset(lineOffsets, oldCode.getLastLineNumber(), oldCode.getLastColumnNumber());
+		String newBody = newContents.substring(bodyStart, bodyEnd + newLength - oldLength);
+		BlockStatement newCode = parseBody(sourceUnit, newBody, oldCode.getLineNumber(), oldCode.getColumnNumber());
+		if (newCode == null) {
+			return null;
+		}
+
+		LanguageServerErrorCollector errorCollector = (LanguageServerErrorCollector) sourceUnit.getErrorCollector();
+		int startLine = oldCode.getLineNumber();
+		int endLine = oldCode.getLastLineNumber();
+		errorCollector.removeErrors(0, message -> isInLines(message, sourceUnit, startLine, endLine));
+		int errorCount = errorCollector.getErrorCount();
+		method.setCode(newCode);
+		analyze(sourceUnit, method);
+		// the visitors also check the rest of the class, and those errors
+		// were already reported
+		errorCollector.removeErrors(errorCount, message -> !isInLines(message, sourceUnit, startLine, endLine));
+		sourceUnit.setSource(
+				new StringReaderSourceWithURI(newContents, source.getURI(), sourceUnit.getConfiguration()));
+		return new Splice(method, oldCode);
+	}
+
+	private MethodNode findMethod(ModuleNode moduleNode, LineOffsets lineOffsets, int changeStart, int changeEnd,
+			int changeEndLine) {
+		for (ClassNode classNode : moduleNode.getClasses()) {
+			if (classNode instanceof InnerClassNode || classNode.isScript() || Traits.isTrait(classNode)
+					|| !classNode.getAnnotations().isEmpty()) {
+				continue;
+			}
+			for (MethodNode method : classNode.getMethods()) {
+				if (method.isSynthetic() || method.isScriptBody() || !method.getAnnotations().isEmpty()
+						|| !(method.getCode() instanceof BlockStatement)) {
+					continue;
+				}
+				Statement code = method.getCode();
+				if (code.getLineNumber() == -1 || code.getLastLineNumber() <= changeEndLine) {
+					continue;
+				}
+				int bodyStart = getOffset(lineOffsets, code.getLineNumber(), code.getColumnNumber());
+				if (bodyStart == -1 || bodyStart >= changeStart) {
+					continue;
+				}
+				int bodyEnd = getOffset(lineOffsets, code.getLastLineNumber(), code.getLastColumnNumber());
+				if (bodyEnd == -1 || bodyEnd <= changeEnd) {
+					continue;
+				}
+				if (hasInnerClass(moduleNode, method)) {
+					return null;
+				}
+				return method;
+			}
+		}
+		return null;
+	}
+
+	private boolean hasGlobalTransformations() {
+		CompilerConfiguration config = compilationUnit.getConfiguration();
+		for (CompilationCustomizer customizer : config.getCompilationCustomizers()) {
+			if (customizer instanceof ASTTransformationCustomizer) {
+				return true;
+			}
+		}
+		Set<String> names = globalTransformationsByLoader.computeIfAbsent(compilationUnit.getTransformLoader(),
+				MethodBodySplicer::findGlobalTransformations);
+		Set<String> disabledNames = config.getDisabledGlobalASTTransformations();
+		for (String name : names) {
+			if (!GRAB_TRANSFORMATION.equals(name) && (disabledNames == null || !disabledNames.contains(name))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Set<String> findGlobalTransformations(ClassLoader loader) {
+		Set<String> names = new HashSet<>();
+		for (String resourceName : GLOBAL_TRANSFORMATION_RESOURCES) {
+			try {
+				Enumeration<URL> urls = loader.getResources(resourceName);
+				while (urls.hasMoreElements()) {
+					URL url = urls.nextElement();
+					try (BufferedReader reader = new BufferedReader(
+							new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+						String line;
+						while ((line = reader.readLine()) != null) {
+							int commentIndex = line.indexOf('#');
+							if (commentIndex != -1) {
+								line = line.substring(0, commentIndex);
+							}
+							line = line.trim();
+							if (!line.isEmpty()) {
+								names.add(line);
+							}
+						}
+					}
+				}
+			} catch (IOException e) {
+				// a transformation that can't be read may still be registered
+				names.add(resourceName);
+			}
+		}
+		return names;
+	}
+
+	private boolean hasInnerClass(ModuleNode moduleNode, MethodNode method) {
+		for (ClassNode classNode : moduleNode.getClasses()) {
+			if (classNode instanceof InnerClassNode && ((InnerClassNode) classNode).getEnclosingMethod() == method) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Parses a method body at the same line and column as the original, so
+	 * that the positions of the new nodes are correct.
+	 */
+	private BlockStatement parseBody(SourceUnit sourceUnit, String body, int line, int column) {
+		if (line < 2) {
+			// the wrapper method's declaration needs a line of its own
+			return null;
+		}
+		StringBuilder builder = new StringBuilder();
+		builder.append("class ");
+		builder.append(WRAPPER_CLASS_NAME);
+		builder.append(" { def ");
+		builder.append(WRAPPER_METHOD_NAME);
+		builder.append("()");
+		for (int i = 1; i < line; i++) {
+			builder.append('\n');
+		}
+		for (int i = 1; i < column; i++) {
+			builder.append(' ');
+		}
+		builder.append(body);
+		builder.append("\n}");
+
+		CompilerConfiguration config = sourceUnit.getConfiguration();
+		URI uri = sourceUnit.getSource().getURI();
+		LanguageServerErrorCollector errorCollector = new LanguageServerErrorCollector(config);
+		SourceUnit bodyUnit = new SourceUnit(sourceUnit.getName(),
+				new StringReaderSourceWithURI(builder.toString(), uri, config), config,
+				sourceUnit.getClassLoader(), errorCollector);
+		try {
+			bodyUnit.parse();
+			bodyUnit.completePhase();
+			bodyUnit.nextPhase();
+			bodyUnit.convert();
+		} catch (CompilationFailedException e) {
+			return null;
+		}
+		ModuleNode moduleNode = bodyUnit.getAST();
+		if (errorCollector.hasErrors() || moduleNode == null || moduleNode.getClasses().size() != 1) {
+			// syntax errors and new inner classes are handled by a full
+			// compile
+			return null;
+		}
+		List<MethodNode> methods = moduleNode.getClasses().get(0).getMethods(WRAPPER_METHOD_NAME);
+		if (methods.size() != 1 || !(methods.get(0).getCode() instanceof BlockStatement)) {
+			return null;
+		}
+		BlockStatement code = (BlockStatement) methods.get(0).getCode();
+		if (code.getLineNumber() != line || code.getColumnNumber() != column) {
+			return null;
+		}
+		return code;
+	}
+
+	/**
+	 * Runs the parts of semantic analysis that apply to method bodies, for a
+	 * single method.
+	 */
+	private void analyze(SourceUnit sourceUnit, MethodNode method) {
+		ClassNode classNode = method.getDeclaringClass();
+		new VariableScopeVisitor(sourceUnit) {
+			@Override
+			public void visitField(FieldNode node) {
+			}
+
+			@Override
+			public void visitProperty(PropertyNode node) {
+			}
+
+			@Override
+			protected void visitObjectInitializerStatements(ClassNode node) {
+			}
+
+			@Override
+			protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+				if (node == method) {
+					super.visitConstructorOrMethod(node, isConstructor);
+				}
+			}
+		}.visitClass(classNode);
+		ResolveVisitor resolveVisitor = new ResolveVisitor(compilationUnit) {
+			@Override
+			public void visitField(FieldNode node) {
+			}
+
+			@Override
+			public void visitProperty(PropertyNode node) {
+			}
+
+			@Override
+			protected void visitObjectInitializerStatements(ClassNode node) {
+			}
+
+			@Override
+			protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+				if (node == method) {
+					super.visitConstructorOrMethod(node, isConstructor);
+				}
+			}
+		};
+		resolveVisitor.setClassNodeResolver(compilationUnit.getClassNodeResolver());
+		resolveVisitor.startResolving(classNode, sourceUnit);
+		new StaticImportVisitor(classNode, sourceUnit) {
+			@Override
+			public void visitField(FieldNode node) {
+			}
+
+			@Override
+			public void visitProperty(PropertyNode node) {
+			}
+
+			@Override
+			protected void visitObjectInitializerStatements(ClassNode node) {
+			}
+
+			@Override
+			protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+				if (node == method) {
+					super.visitConstructorOrMethod(node, isConstructor);
+				}
+			}
+		}.visitClass(classNode, sourceUnit);
+		new GenericsVisitor(sourceUnit) {
+			@Override
+			public void visitField(FieldNode node) {
+			}
+
+			@Override
+			public void visitProperty(PropertyNode node) {
+			}
+
+			@Override
+			protected void visitObjectInitializerStatements(ClassNode node) {
+			}
+
+			@Override
+			protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+				if (node == method) {
+					super.visitConstructorOrMethod(node, isConstructor);
+				}
+			}
+		}.visitClass(classNode);
+	}
+
+	private static boolean isInLines(Message message, SourceUnit sourceUnit, int startLine, int endLine) {
+		if (!(message instanceof SyntaxErrorMessage)) {
+			return false;
+		}
+		SyntaxException cause = ((SyntaxErrorMessage) message).getCause();
+		if (!sourceUnit.getName().equals(cause.getSourceLocator())) {
+			return false;
+		}
+		return cause.getStartLine() >= startLine && cause.getStartLine() <= endLine;
+	}
+
+	private static int getOffset(LineOffsets lineOffsets, int groovyLine, int groovyColumn) {
+		if (groovyLine < 1 || groovyColumn < 1) {
+			return -1;
+		}
+		return lineOffsets.getOffset(new Position(groovyLine - 1, groovyColumn - 1));
+	}
+
+	private static int countLines(String contents, int start, int end) {
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			if (contents.charAt(i) == '\n') {
+				count++;
+			}
+		}
+		return count;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.groovy.parser.antlr4.GroovyLexer;
+import org.apache.groovy.parser.antlr4.GroovyParser;
+import org.apache.groovy.parser.antlr4.internal.atnmanager.AtnManager;
+
+import groovyjarjarantlr4.v4.runtime.atn.ATN;
+import groovyjarjarantlr4.v4.runtime.dfa.DFA;
+
+/**
+ * Keeps the memory used by the parser's DFA and prediction context caches
+ * bounded. The caches are shared by every parse, and they only grow, so they
+ * are cleared when they exceed a maximum size while the language server is
+ * idle, or when they exceed twice the maximum size at any time. After
+ * clearing, the parser may be warmed up again.
+ */
+public class ParserCacheMonitor {
+	public static class Statistics {
+		private int parserDFAStates;
+		private int lexerDFAStates;
+		private int predictionContexts;
+		private int maxSize;
+		private int clearCount;
+
+		public int getParserDFAStates() {
+			return parserDFAStates;
+		}
+
+		public int getLexerDFAStates() {
+			return lexerDFAStates;
+		}
+
+		public int getPredictionContexts() {
+			return predictionContexts;
+		}
+
+		public int getSize() {
+			return parserDFAStates + lexerDFAStates + predictionContexts;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public int getClearCount() {
+			return clearCount;
+		}
+	}
+
+	private static class WriteLockHolder {
+		// initializing the parser's lock reads the parser's system properties,
+		// so it must not happen before they are configured
+		public static final Lock WRITE_LOCK = getWriteLock();
+	}
+
+	public static final int DEFAULT_MAX_SIZE = 200000;
+	private static final long CHECK_INTERVAL_SECONDS = 60;
+	private static final long IDLE_MS = 5 * 60 * 1000;
+
+	private ScheduledThreadPoolExecutor executor;
+	private Runnable rewarm;
+	private volatile int maxSize = DEFAULT_MAX_SIZE;
+	private volatile boolean rewarmEnabled = true;
+	private volatile long lastActiveTime = System.currentTimeMillis();
+	private volatile int clearCount = 0;
+
+	/**
+	 * @param rewarm warms up the parser after the caches are cleared, if
+	 *               enabled. Called on the monitor thread.
+	 */
+	public ParserCacheMonitor(Runnable rewarm) {
+		this.rewarm = rewarm;
+	}
+
+	public synchronized void start() {
+		if (executor != null) {
+			return;
+		}
+		executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "groovyls-parser-cache");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(() -> {
+			checkCaches(System.currentTimeMillis());
+		}, CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of DFA states and prediction contexts. Use -1
+	 * to never clear the caches.
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public void setRewarmEnabled(boolean rewarmEnabled) {
+		this.rewarmEnabled = rewarmEnabled;
+	}
+
+	/**
+	 * Should be called when files are parsed, so that the caches aren't
+	 * cleared while they are in use.
+	 */
+	public void markActive() {
+		lastActiveTime = System.currentTimeMillis();
+	}
+
+	public Statistics getStatistics() {
+		Statistics result = new Statistics();
+		result.parserDFAStates = getDFAStateCount(GroovyParser._ATN);
+		result.lexerDFAStates = getDFAStateCount(GroovyLexer._ATN);
+		result.predictionContexts = GroovyParser._ATN.getContextCacheSize()
+				+ GroovyLexer._ATN.getContextCacheSize();
+		result.maxSize = maxSize;
+		result.clearCount = clearCount;
+		return result;
+	}
+
+	/**
+	 * Clears the caches, if they are too large. Returns true if the caches
+	 * were cleared.
+	 */
+	boolean checkCaches(long now) {
+		int currentMaxSize = maxSize;
+		if (currentMaxSize < 0) {
+			return false;
+		}
+		int size = getStatistics().getSize();
+		boolean idle = now - lastActiveTime >= IDLE_MS;
+		if (size <= currentMaxSize || (!idle && size <= currentMaxSize * 2L)) {
+			return false;
+		}
+		Lock writeLock = WriteLockHolder.WRITE_LOCK;
+		if (writeLock == null) {
+			return false;
+		}
+		// a parse holds the read lock, so the caches can't be cleared while
+		// they are in use
+		writeLock.lock();
+		try {
+			GroovyParser._ATN.clearDFA();
+			GroovyLexer._ATN.clearDFA();
+		} finally {
+			writeLock.unlock();
+		}
+		clearCount++;
+		if (rewarmEnabled) {
+			rewarm.run();
+		}
+		return true;
+	}
+
+	private static int getDFAStateCount(ATN atn) {
+		int result = 0;
+		for (DFA dfa : atn.decisionToDFA) {
+			result += dfa.states.size();
+		}
+		if (atn.modeToDFA != null) {
+			for (DFA dfa : atn.modeToDFA) {
+				result += dfa.states.size();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The parser clears its caches with a lock that isn't public. Without it,
+	 * the caches are never cleared, but their sizes are still reported.
+	 */
+	private static Lock getWriteLock() {
+		try {
+			Field field = AtnManager.class.getDeclaredField("WRITE_LOCK");
+			field.setAccessible(true);
+			return (Lock) field.get(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			System.err.println("Parser caches can't be cleared: " + e);
+			return null;
+		}
+	}
+}
\ No newline at end of file
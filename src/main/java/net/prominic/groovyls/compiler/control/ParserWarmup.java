@@ -0,0 +1,123 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.messages.Message;
+
+import net.prominic.groovyls.compiler.control.io.StringReaderSourceWithURI;
+
+/**
+ * Parses a small bundled corpus of Groovy code on a low priority background
+ * thread, so that the parser's DFA cache and the JIT are already warm when
+ * the first file from the workspace is parsed.
+ */
+public class ParserWarmup {
+	private static final String[] CORPUS = { "warmup/Classes.groovy", "warmup/Scripts.groovy" };
+	private static final int ROUNDS = 3;
+
+	private CompilerConfiguration config = new CompilerConfiguration();
+	private Thread thread;
+
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		thread = new Thread(() -> {
+			List<String> corpus = loadCorpus();
+			for (int i = 0; i < ROUNDS && !Thread.currentThread().isInterrupted(); i++) {
+				parseCorpus(corpus);
+			}
+		}, "groovyls-warmup");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	public synchronized void stop() {
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	List<String> loadCorpus() {
+		List<String> result = new ArrayList<>();
+		for (String name : CORPUS) {
+			try (InputStream stream = ParserWarmup.class.getResourceAsStream(name)) {
+				if (stream == null) {
+					continue;
+				}
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int count = 0;
+				while ((count = stream.read(buffer)) != -1) {
+					bytes.write(buffer, 0, count);
+				}
+				result.add(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				System.err.println("Failed to read parser warm-up source: " + name);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Parses each source to the conversion phase, and returns the number of
+	 * errors.
+	 */
+	int parseCorpus(List<String> corpus) {
+		int errorCount = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			if (Thread.currentThread().isInterrupted()) {
+				break;
+			}
+			URI uri = URI.create("file:///groovyls-warmup/Warmup" + i + ".groovy");
+			LanguageServerErrorCollector errorCollector = new LanguageServerErrorCollector(config);
+			SourceUnit sourceUnit = new SourceUnit("Warmup" + i + ".groovy",
+					new StringReaderSourceWithURI(corpus.get(i), uri, config), config, null, errorCollector);
+			try {
+				sourceUnit.parse();
+				sourceUnit.completePhase();
+				sourceUnit.nextPhase();
+				sourceUnit.convert();
+			} catch (CompilationFailedException e) {
+				// the errors have been added to the error collector
+			} catch (Exception e) {
+				System.err.println("Unexpected exception in language server when warming up the parser.");
+				e.printStackTrace(System.err);
+			}
+			List<? extends Message> errors = errorCollector.getErrors();
+			if (errors != null) {
+				errorCount += errors.size();
+			}
+		}
+		return errorCount;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,540 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ConstructorNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.GenericsType;
+import org.codehaus.groovy.ast.ImportNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.expr.ArrayExpression;
+import org.codehaus.groovy.ast.expr.CastExpression;
+import org.codehaus.groovy.ast.expr.ClassExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.CatchStatement;
+import org.codehaus.groovy.ast.stmt.ForStatement;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.SourceUnit;
+
+/**
+ * Records which source units depend on the classes declared in other source
+ * units, and a hash of the API of each source unit, so that a change to one
+ * source unit recompiles only the source units that are affected by it.
+ *
+ * The API hash is computed after the conversion phase, before any types are
+ * resolved, and it includes the imports and the signatures of classes and
+ * their members, but not method bodies or positions. The dependencies are
+ * recorded after the semantic analysis phase, from the resolved types that
+ * a source unit references.
+ */
+public class SourceDependencyGraph {
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private Map<URI, Long> apiHashes = new HashMap<>();
+	private Map<URI, Set<String>> classNamesByURI = new HashMap<>();
+	private Map<URI, Set<String>> dependenciesByURI = new HashMap<>();
+	private Map<URI, Set<String>> supertypesByURI = new HashMap<>();
+	private Map<String, Set<URI>> dependentURIsByName = new HashMap<>();
+	private Map<String, Set<URI>> subtypeURIsByName = new HashMap<>();
+
+	public void clear() {
+		apiHashes.clear();
+		classNamesByURI.clear();
+		dependenciesByURI.clear();
+		supertypesByURI.clear();
+		dependentURIsByName.clear();
+		subtypeURIsByName.clear();
+	}
+
+	/**
+	 * Updates the API hashes of the specified URIs, which must have completed
+	 * the conversion phase, or have been removed from the compilation unit.
+	 * Returns the other URIs that depend on an API that changed, and the URIs
+	 * that depend on those URIs, transitively.
+	 */
+	public Set<URI> updateAPI(CompilationUnit unit, Collection<URI> uris) {
+		Map<URI, SourceUnit> sourceUnits = getSourceUnits(unit, uris);
+		Set<String> changedNames = new HashSet<>();
+		for (URI uri : uris) {
+			SourceUnit sourceUnit = sourceUnits.get(uri);
+			Long oldHash = apiHashes.get(uri);
+			Set<String> oldClassNames = classNamesByURI.get(uri);
+			if (sourceUnit == null || sourceUnit.getAST() == null) {
+				if (oldHash != null) {
+					changedNames.addAll(oldClassNames);
+				}
+				removeURI(uri);
+				continue;
+			}
+			ModuleNode module = sourceUnit.getAST();
+			long newHash = getAPIHash(module);
+			Set<String> newClassNames = new HashSet<>();
+			for (ClassNode classNode : module.getClasses()) {
+				newClassNames.add(classNode.getName());
+			}
+			apiHashes.put(uri, newHash);
+			classNamesByURI.put(uri, newClassNames);
+			if (oldHash == null || oldHash != newHash) {
+				changedNames.addAll(newClassNames);
+				if (oldClassNames != null) {
+					changedNames.addAll(oldClassNames);
+				}
+			}
+		}
+		return getAffectedURIs(changedNames, uris);
+	}
+
+	/**
+	 * Records the types referenced by the specified URIs, which must have
+	 * completed the semantic analysis phase.
+	 */
+	public void updateDependencies(CompilationUnit unit, Collection<URI> uris) {
+		Map<URI, SourceUnit> sourceUnits = getSourceUnits(unit, uris);
+		for (URI uri : uris) {
+			removeDependencies(uri);
+			SourceUnit sourceUnit = sourceUnits.get(uri);
+			if (sourceUnit == null || sourceUnit.getAST() == null) {
+				continue;
+			}
+			DependencyCollector collector = new DependencyCollector(sourceUnit);
+			collector.visitModule(sourceUnit.getAST());
+			Set<String> ownClassNames = classNamesByURI.getOrDefault(uri, Collections.emptySet());
+			collector.dependencies.removeAll(ownClassNames);
+			collector.supertypes.removeAll(ownClassNames);
+			dependenciesByURI.put(uri, collector.dependencies);
+			supertypesByURI.put(uri, collector.supertypes);
+			for (String name : collector.dependencies) {
+				dependentURIsByName.computeIfAbsent(name, key -> new HashSet<>()).add(uri);
+			}
+			for (String name : collector.supertypes) {
+				subtypeURIsByName.computeIfAbsent(name, key -> new HashSet<>()).add(uri);
+			}
+		}
+	}
+
+	public void removeURI(URI uri) {
+		apiHashes.remove(uri);
+		classNamesByURI.remove(uri);
+		removeDependencies(uri);
+	}
+
+	private Set<URI> getAffectedURIs(Set<String> changedNames, Collection<URI> updatedURIs) {
+		Set<URI> result = new HashSet<>();
+		Deque<String> queue = new ArrayDeque<>(changedNames);
+		Set<String> visitedNames = new HashSet<>(changedNames);
+		while (!queue.isEmpty()) {
+			String name = queue.poll();
+			Set<URI> dependentURIs = new HashSet<>();
+			addDependents(dependentURIsByName, name, dependentURIs);
+			addDependents(subtypeURIsByName, name, dependentURIs);
+			// a dependent is compiled again with new class nodes, and the
+			// files that depend on it still reference its old class nodes,
+			// so they are affected too
+			for (URI dependentURI : dependentURIs) {
+				if (!result.add(dependentURI)) {
+					continue;
+				}
+				for (String dependentName : classNamesByURI.getOrDefault(dependentURI, Collections.emptySet())) {
+					if (visitedNames.add(dependentName)) {
+						queue.add(dependentName);
+					}
+				}
+			}
+		}
+		result.removeAll(updatedURIs);
+		return result;
+	}
+
+	private void addDependents(Map<String, Set<URI>> urisByName, String name, Set<URI> result) {
+		Set<URI> uris = urisByName.get(name);
+		if (uris != null) {
+			result.addAll(uris);
+		}
+		// types that failed to resolve are recorded by their simple names
+		int dotIndex = name.lastIndexOf('.');
+		if (dotIndex != -1) {
+			uris = urisByName.get(name.substring(dotIndex + 1));
+			if (uris != null) {
+				result.addAll(uris);
+			}
+		}
+	}
+
+	private void removeDependencies(URI uri) {
+		Set<String> dependencies = dependenciesByURI.remove(uri);
+		if (dependencies != null) {
+			removeFromIndex(dependentURIsByName, dependencies, uri);
+		}
+		Set<String> supertypes = supertypesByURI.remove(uri);
+		if (supertypes != null) {
+			removeFromIndex(subtypeURIsByName, supertypes, uri);
+		}
+	}
+
+	private void removeFromIndex(Map<String, Set<URI>> urisByName, Set<String> names, URI uri) {
+		for (String name : names) {
+			Set<URI> uris = urisByName.get(name);
+			if (uris == null) {
+				continue;
+			}
+			uris.remove(uri);
+			if (uris.isEmpty()) {
+				urisByName.remove(name);
+			}
+		}
+	}
+
+	private Map<URI, SourceUnit> getSourceUnits(CompilationUnit unit, Collection<URI> uris) {
+		Map<URI, SourceUnit> result = new HashMap<>();
+		unit.iterator().forEachRemaining(sourceUnit -> {
+			URI uri = sourceUnit.getSource().getURI();
+			if (uris.contains(uri)) {
+				result.put(uri, sourceUnit);
+			}
+		});
+		return result;
+	}
+
+	private static long getAPIHash(ModuleNode module) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(module.getPackageName()).append(';');
+		for (ImportNode importNode : module.getImports()) {
+			builder.append("import ").append(importNode.getClassName()).append(" as ").append(importNode.getAlias())
+					.append(';');
+		}
+		for (ImportNode importNode : module.getStarImports()) {
+			builder.append("import ").append(importNode.getPackageName()).append("*;");
+		}
+		module.getStaticImports().forEach((alias, importNode) -> {
+			builder.append("import static ").append(importNode.getClassName()).append('.')
+					.append(importNode.getFieldName()).append(" as ").append(alias).append(';');
+		});
+		module.getStaticStarImports().forEach((alias, importNode) -> {
+			builder.append("import static ").append(importNode.getClassName()).append(".*;");
+		});
+		for (ClassNode classNode : module.getClasses()) {
+			appendClass(classNode, builder);
+		}
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < builder.length(); i++) {
+			hash ^= builder.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	private static void appendClass(ClassNode classNode, StringBuilder builder) {
+		appendAnnotations(classNode, builder);
+		builder.append(classNode.getModifiers()).append(" class ").append(classNode.getName());
+		appendGenerics(classNode.getGenericsTypes(), builder);
+		builder.append(" extends ");
+		appendType(classNode.getUnresolvedSuperClass(false), builder);
+		builder.append(" implements");
+		for (ClassNode interfaceNode : classNode.getUnresolvedInterfaces(false)) {
+			builder.append(' ');
+			appendType(interfaceNode, builder);
+		}
+		builder.append('{');
+		for (FieldNode fieldNode : classNode.getFields()) {
+			appendAnnotations(fieldNode, builder);
+			builder.append(fieldNode.getModifiers()).append(' ');
+			appendType(fieldNode.getType(), builder);
+			builder.append(' ').append(fieldNode.getName()).append(';');
+		}
+		for (PropertyNode propertyNode : classNode.getProperties()) {
+			appendAnnotations(propertyNode, builder);
+			builder.append("property ").append(propertyNode.getModifiers()).append(' ');
+			appendType(propertyNode.getType(), builder);
+			builder.append(' ').append(propertyNode.getName()).append(';');
+		}
+		for (ConstructorNode constructorNode : classNode.getDeclaredConstructors()) {
+			appendMethod(constructorNode, builder);
+		}
+		for (MethodNode methodNode : classNode.getMethods()) {
+			appendMethod(methodNode, builder);
+		}
+		builder.append('}');
+	}
+
+	private static void appendMethod(MethodNode methodNode, StringBuilder builder) {
+		appendAnnotations(methodNode, builder);
+		builder.append(methodNode.getModifiers()).append(' ');
+		appendGenerics(methodNode.getGenericsTypes(), builder);
+		appendType(methodNode.getReturnType(), builder);
+		builder.append(' ').append(methodNode.getName()).append('(');
+		for (Parameter parameter : methodNode.getParameters()) {
+			appendType(parameter.getType(), builder);
+			builder.append(' ').append(parameter.getName());
+			if (parameter.hasInitialExpression()) {
+				builder.append("=?");
+			}
+			builder.append(',');
+		}
+		builder.append(") throws");
+		ClassNode[] exceptions = methodNode.getExceptions();
+		if (exceptions != null) {
+			for (ClassNode exception : exceptions) {
+				builder.append(' ');
+				appendType(exception, builder);
+			}
+		}
+		builder.append(';');
+	}
+
+	private static void appendAnnotations(AnnotatedNode node, StringBuilder builder) {
+		for (AnnotationNode annotationNode : node.getAnnotations()) {
+			builder.append('@');
+			appendType(annotationNode.getClassNode(), builder);
+			// members may be used by AST transformations that change the API
+			annotationNode.getMembers().forEach((name, value) -> {
+				builder.append(name).append('=').append(value.getText()).append(',');
+			});
+			builder.append(' ');
+		}
+	}
+
+	private static void appendType(ClassNode type, StringBuilder builder) {
+		if (type == null) {
+			builder.append("null");
+			return;
+		}
+		builder.append(type.getName());
+		appendGenerics(type.getGenericsTypes(), builder);
+	}
+
+	private static void appendGenerics(GenericsType[] genericsTypes, StringBuilder builder) {
+		if (genericsTypes == null) {
+			return;
+		}
+		builder.append('<');
+		for (GenericsType genericsType : genericsTypes) {
+			builder.append(genericsType.toString()).append(',');
+		}
+		builder.append('>');
+	}
+
+	private static class DependencyCollector extends ClassCodeVisitorSupport {
+		private SourceUnit sourceUnit;
+		public Set<String> dependencies = new HashSet<>();
+		public Set<String> supertypes = new HashSet<>();
+
+		public DependencyCollector(SourceUnit sourceUnit) {
+			this.sourceUnit = sourceUnit;
+		}
+
+		@Override
+		protected SourceUnit getSourceUnit() {
+			return sourceUnit;
+		}
+
+		public void visitModule(ModuleNode module) {
+			for (ImportNode importNode : module.getImports()) {
+				addType(importNode.getType());
+			}
+			module.getStaticImports().values().forEach(importNode -> addType(importNode.getType()));
+			module.getStaticStarImports().values().forEach(importNode -> addType(importNode.getType()));
+			for (ClassNode classNode : module.getClasses()) {
+				visitClass(classNode);
+			}
+		}
+
+		@Override
+		public void visitClass(ClassNode node) {
+			addSupertype(node.getUnresolvedSuperClass(false));
+			for (ClassNode interfaceNode : node.getUnresolvedInterfaces(false)) {
+				addSupertype(interfaceNode);
+			}
+			super.visitClass(node);
+		}
+
+		@Override
+		public void visitAnnotations(AnnotatedNode node) {
+			for (AnnotationNode annotationNode : node.getAnnotations()) {
+				addType(annotationNode.getClassNode());
+			}
+			super.visitAnnotations(node);
+		}
+
+		@Override
+		public void visitField(FieldNode node) {
+			addType(node.getType());
+			super.visitField(node);
+		}
+
+		@Override
+		public void visitProperty(PropertyNode node) {
+			addType(node.getType());
+			super.visitProperty(node);
+		}
+
+		@Override
+		protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+			addType(node.getReturnType());
+			for (Parameter parameter : node.getParameters()) {
+				addType(parameter.getType());
+			}
+			ClassNode[] exceptions = node.getExceptions();
+			if (exceptions != null) {
+				for (ClassNode exception : exceptions) {
+					addType(exception);
+				}
+			}
+			super.visitConstructorOrMethod(node, isConstructor);
+		}
+
+		@Override
+		public void visitVariableExpression(VariableExpression expression) {
+			addType(expression.getOriginType());
+			super.visitVariableExpression(expression);
+		}
+
+		@Override
+		public void visitClassExpression(ClassExpression expression) {
+			addType(expression.getType());
+			super.visitClassExpression(expression);
+		}
+
+		@Override
+		public void visitConstructorCallExpression(ConstructorCallExpression call) {
+			addType(call.getType());
+			super.visitConstructorCallExpression(call);
+		}
+
+		@Override
+		public void visitStaticMethodCallExpression(StaticMethodCallExpression call) {
+			addType(call.getOwnerType());
+			super.visitStaticMethodCallExpression(call);
+		}
+
+		@Override
+		public void visitCastExpression(CastExpression expression) {
+			addType(expression.getType());
+			super.visitCastExpression(expression);
+		}
+
+		@Override
+		public void visitArrayExpression(ArrayExpression expression) {
+			addType(expression.getElementType());
+			super.visitArrayExpression(expression);
+		}
+
+		@Override
+		public void visitClosureExpression(ClosureExpression expression) {
+			Parameter[] parameters = expression.getParameters();
+			if (parameters != null) {
+				for (Parameter parameter : parameters) {
+					addType(parameter.getType());
+				}
+			}
+			super.visitClosureExpression(expression);
+		}
+
+		@Override
+		public void visitCatchStatement(CatchStatement statement) {
+			addType(statement.getExceptionType());
+			super.visitCatchStatement(statement);
+		}
+
+		@Override
+		public void visitForLoop(ForStatement forLoop) {
+			addType(forLoop.getVariableType());
+			super.visitForLoop(forLoop);
+		}
+
+		private void addSupertype(ClassNode type) {
+			if (type == null) {
+				return;
+			}
+			String name = getSourceTypeName(type);
+			if (name != null) {
+				supertypes.add(name);
+			}
+			addType(type);
+		}
+
+		private void addType(ClassNode type) {
+			if (type == null) {
+				return;
+			}
+			if (type.isArray()) {
+				addType(type.getComponentType());
+				return;
+			}
+			String name = getSourceTypeName(type);
+			if (name != null) {
+				dependencies.add(name);
+			}
+			GenericsType[] genericsTypes = type.getGenericsTypes();
+			if (genericsTypes == null) {
+				return;
+			}
+			for (GenericsType genericsType : genericsTypes) {
+				if (genericsType.isPlaceholder()) {
+					continue;
+				}
+				addType(genericsType.getType());
+				ClassNode[] upperBounds = genericsType.getUpperBounds();
+				if (upperBounds != null) {
+					for (ClassNode upperBound : upperBounds) {
+						addType(upperBound);
+					}
+				}
+				addType(genericsType.getLowerBound());
+			}
+		}
+
+		/**
+		 * Only classes from source units, and types that could not be
+		 * resolved, which may be declared by a source unit later, need to be
+		 * recorded.
+		 */
+		private String getSourceTypeName(ClassNode type) {
+			if (type.isGenericsPlaceHolder()) {
+				return null;
+			}
+			ClassNode redirect = type.redirect();
+			if (redirect.isPrimaryClassNode() || !redirect.isResolved()) {
+				return redirect.getName();
+			}
+			return null;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.messages.Message;
+import org.codehaus.groovy.control.messages.SyntaxErrorMessage;
+import org.codehaus.groovy.syntax.SyntaxException;
+
+import groovy.lang.GroovyClassLoader;
+import net.prominic.groovyls.compiler.control.io.StringReaderSourceWithURI;
+
+/**
+ * Parses a single file to the conversion phase on its own thread, so that
+ * syntax errors may be reported before the compilation unit has finished
+ * compiling. Checks of the same URI are coalesced, and only the latest
+ * contents are parsed.
+ */
+public class SyntaxChecker {
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private ThreadPoolExecutor executor;
+	private volatile CompilerConfiguration config = new CompilerConfiguration();
+	private volatile GroovyClassLoader classLoader;
+	private GroovyClassLoader defaultClassLoader;
+	private Set<URI> queuedURIs = ConcurrentHashMap.newKeySet();
+	private Function<URI, String> contentsProvider;
+	private BiConsumer<URI, List<SyntaxException>> listener;
+
+	/**
+	 * @param contentsProvider returns the current contents of a URI. May be
+	 *                         called from any thread.
+	 * @param listener         receives the syntax errors of a URI, if its
+	 *                         contents have not changed while parsing. Always
+	 *                         called on the syntax checker thread.
+	 */
+	public SyntaxChecker(Function<URI, String> contentsProvider,
+			BiConsumer<URI, List<SyntaxException>> listener) {
+		this.contentsProvider = contentsProvider;
+		this.listener = listener;
+		executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "groovyls-syntax");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Parses with the same configuration and class loader as the compilation
+	 * unit. Until this is called, a default configuration is used.
+	 */
+	public void setCompilerConfiguration(CompilerConfiguration config, GroovyClassLoader classLoader) {
+		this.config = config;
+		this.classLoader = classLoader;
+	}
+
+	public void check(URI uri) {
+		if (!queuedURIs.add(uri)) {
+			// the queued check will read the latest contents
+			return;
+		}
+		executor.execute(() -> {
+			queuedURIs.remove(uri);
+			String contents = contentsProvider.apply(uri);
+			if (contents == null) {
+				return;
+			}
+			List<SyntaxException> errors = parse(uri, contents);
+			if (!contents.equals(contentsProvider.apply(uri))) {
+				// another check has been queued for the newer contents
+				return;
+			}
+			listener.accept(uri, errors);
+		});
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private List<SyntaxException> parse(URI uri, String contents) {
+		CompilerConfiguration config = this.config;
+		GroovyClassLoader classLoader = this.classLoader;
+		if (classLoader == null) {
+			// a source unit creates a new class loader if it doesn't get one
+			if (defaultClassLoader == null) {
+				defaultClassLoader = new GroovyClassLoader(ClassLoader.getSystemClassLoader().getParent(), config,
+						true);
+			}
+			classLoader = defaultClassLoader;
+		}
+		LanguageServerErrorCollector errorCollector = new LanguageServerErrorCollector(config);
+		SourceUnit sourceUnit = new SourceUnit(Paths.get(uri).toString(),
+				new StringReaderSourceWithURI(contents, uri, config), config, classLoader, errorCollector);
+		try {
+			sourceUnit.parse();
+			sourceUnit.completePhase();
+			sourceUnit.nextPhase();
+			sourceUnit.convert();
+		} catch (CompilationFailedException e) {
+			// the errors have been added to the error collector
+		} catch (Exception e) {
+			System.err.println("Unexpected exception in language server when parsing Groovy.");
+			e.printStackTrace(System.err);
+		}
+		List<SyntaxException> result = new ArrayList<>();
+		List<? extends Message> errors = errorCollector.getErrors();
+		if (errors != null) {
+			for (Message message : errors) {
+				if (message instanceof SyntaxErrorMessage) {
+					result.add(((SyntaxErrorMessage) message).getCause());
+				}
+			}
+		}
+		return result;
+	}
+}
\ No newline at end of file
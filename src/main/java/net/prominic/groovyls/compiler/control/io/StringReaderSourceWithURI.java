@@ -25,13 +25,19 @@ import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.io.StringReaderSource;
 
 public class StringReaderSourceWithURI extends StringReaderSource {
+	private String string;
 	private URI uri;
 
 	public StringReaderSourceWithURI(String string, URI uri, CompilerConfiguration configuration) {
 		super(string, configuration);
+		this.string = string;
 		this.uri = uri;
 	}
 
+	public String getString() {
+		return string;
+	}
+
 	public URI getURI() {
 		return uri;
 	}
@@ -19,7 +19,6 @@
 ////////////////////////////////////////////////////////////////////////////////
 package net.prominic.groovyls.compiler.util;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -136,18 +135,17 @@ public class GroovyASTUtils {
 
     public static List<ASTNode> getReferences(ASTNode node, ASTNodeVisitor ast) {
         ASTNode definitionNode = getDefinition(node, true, ast);
-        if (definitionNode == null) {
+        if (definitionNode == null || node.getLineNumber() == -1 || node.getColumnNumber() == -1) {
             return Collections.emptyList();
         }
-        return ast.getNodes().stream().filter(otherNode -> {
-            ASTNode otherDefinition = getDefinition(otherNode, false, ast);
-            return definitionNode.equals(otherDefinition) && node.getLineNumber() != -1 && node.getColumnNumber() != -1;
-        }).collect(Collectors.toList());
+        return ast.getReferences(definitionNode);
     }
 
     private static ClassNode tryToResolveOriginalClassNode(ClassNode node, boolean strict, ASTNodeVisitor ast) {
-        for (ClassNode originalNode : ast.getClassNodes()) {
-            if (originalNode.equals(node)) {
+        if (node != null) {
+            // same as ClassNode.equals(), which compares names
+            ClassNode originalNode = ast.getClassNodeByName(node.getText());
+            if (originalNode != null) {
                 return originalNode;
             }
         }
@@ -173,120 +171,32 @@ public class GroovyASTUtils {
         return null;
     }
 
-    public static List<FieldNode> getFieldsForLeftSideOfPropertyExpression(Expression node, ASTNodeVisitor astVisitor) {
+    public static List<FieldNode> getFieldsForLeftSideOfPropertyExpression(Expression node, String namePrefix,
+            ASTNodeVisitor astVisitor) {
         ClassNode classNode = getTypeOfNode(node, astVisitor);
         if (classNode != null) {
-            List<ClassNode> classNodes = new ArrayList<>();
-            classNodes.add(classNode);
-
             boolean statics = node instanceof ClassExpression;
-
-            List<FieldNode> result = new ArrayList<>();
-            int i = 0;
-            while (i < classNodes.size()) {
-                ClassNode current = classNodes.get(i);
-
-                result.addAll(current.getFields().stream().filter(fieldNode -> {
-                    return statics ? fieldNode.isStatic() : !fieldNode.isStatic();
-                }).collect(Collectors.toList()));
-
-                if (current.isInterface()) {
-                    for (ClassNode interfaceNode : current.getInterfaces()) {
-                        classNodes.add(interfaceNode);
-                    }
-                } else {
-                    ClassNode superClassNode = null;
-                    try {
-                        superClassNode = current.getSuperClass();
-                    } catch (NoClassDefFoundError e) {
-                        // this is fine, we'll just treat it as null
-                    }
-                    if (superClassNode != null) {
-                        classNodes.add(superClassNode);
-                    }
-                }
-                i++;
-            }
-            return result;
+            return astVisitor.getMemberTable(classNode).getFields(statics, namePrefix);
         }
         return Collections.emptyList();
     }
 
-    public static List<PropertyNode> getPropertiesForLeftSideOfPropertyExpression(Expression node,
+    public static List<PropertyNode> getPropertiesForLeftSideOfPropertyExpression(Expression node, String namePrefix,
             ASTNodeVisitor astVisitor) {
         ClassNode classNode = getTypeOfNode(node, astVisitor);
         if (classNode != null) {
-            List<ClassNode> classNodes = new ArrayList<>();
-            classNodes.add(classNode);
-
             boolean statics = node instanceof ClassExpression;
-
-            List<PropertyNode> result = new ArrayList<>();
-            int i = 0;
-            while (i < classNodes.size()) {
-                ClassNode current = classNodes.get(i);
-
-                result.addAll(current.getProperties().stream().filter(propNode -> {
-                    return statics ? propNode.isStatic() : !propNode.isStatic();
-                }).collect(Collectors.toList()));
-
-                if (current.isInterface()) {
-                    for (ClassNode interfaceNode : current.getInterfaces()) {
-                        classNodes.add(interfaceNode);
-                    }
-                } else {
-                    ClassNode superClassNode = null;
-                    try {
-                        superClassNode = current.getSuperClass();
-                    } catch (NoClassDefFoundError e) {
-                        // this is fine, we'll just treat it as null
-                    }
-                    if (superClassNode != null) {
-                        classNodes.add(superClassNode);
-                    }
-                }
-                i++;
-            }
+            return astVisitor.getMemberTable(classNode).getProperties(statics, namePrefix);
         }
         return Collections.emptyList();
     }
 
-    public static List<MethodNode> getMethodsForLeftSideOfPropertyExpression(Expression node,
+    public static List<MethodNode> getMethodsForLeftSideOfPropertyExpression(Expression node, String namePrefix,
             ASTNodeVisitor astVisitor) {
         ClassNode classNode = getTypeOfNode(node, astVisitor);
         if (classNode != null) {
-            List<ClassNode> classNodes = new ArrayList<>();
-            classNodes.add(classNode);
-
             boolean statics = node instanceof ClassExpression;
-
-            List<MethodNode> result = new ArrayList<>();
-            int i = 0;
-            while (i < classNodes.size()) {
-                ClassNode current = classNodes.get(i);
-
-                result.addAll(current.getMethods().stream().filter(methodNode -> {
-                    return statics ? methodNode.isStatic() : !methodNode.isStatic();
-                }).collect(Collectors.toList()));
-
-                if (current.isInterface()) {
-                    for (ClassNode interfaceNode : current.getInterfaces()) {
-                        classNodes.add(interfaceNode);
-                    }
-                } else {
-                    ClassNode superClassNode = null;
-                    try {
-                        superClassNode = current.getSuperClass();
-                    } catch (NoClassDefFoundError e) {
-                        // this is fine, we'll just treat it as null
-                    }
-                    if (superClassNode != null) {
-                        classNodes.add(superClassNode);
-                    }
-                }
-                i++;
-            }
-            return result;
+            return astVisitor.getMemberTable(classNode).getMethods(statics, namePrefix);
         }
         return Collections.emptyList();
     }
@@ -27,6 +27,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,6 +47,9 @@ public class CompilationUnitFactory implements ICompilationUnitFactory {
 	private CompilerConfiguration config;
 	private GroovyClassLoader classLoader;
 	private List<String> additionalClasspathList;
+	private Map<String, Boolean> optimizationOptions = new HashMap<>();
+	private Path workspaceFilesRoot;
+	private Set<URI> workspaceFileURIs;
 
 	public CompilationUnitFactory() {
 	}
@@ -59,12 +63,50 @@ public class CompilationUnitFactory implements ICompilationUnitFactory {
 		invalidateCompilationUnit();
 	}
 
+	public Map<String, Boolean> getOptimizationOptions() {
+		return optimizationOptions;
+	}
+
+	public void setOptimizationOptions(Map<String, Boolean> optimizationOptions) {
+		this.optimizationOptions = optimizationOptions;
+		// the options are read from the configuration when compiling, so
+		// existing source units must be created again with a new configuration.
+		// the classpath hasn't changed, so the class loader is kept, and the
+		// classpath doesn't need to be scanned again.
+		compilationUnit = null;
+		config = null;
+	}
+
 	public void invalidateCompilationUnit() {
 		compilationUnit = null;
 		config = null;
 		classLoader = null;
 	}
 
+	public void resetCompilationUnit() {
+		compilationUnit = null;
+	}
+
+	public void updateWorkspaceFiles(Set<URI> uris) {
+		if (workspaceFileURIs == null) {
+			// nothing to update until the files are needed
+			return;
+		}
+		Path normalizedRoot = workspaceFilesRoot.normalize();
+		for (URI uri : uris) {
+			Path filePath = Paths.get(uri);
+			if (!filePath.toString().endsWith(FILE_EXTENSION_GROOVY)
+					|| !filePath.normalize().startsWith(normalizedRoot)) {
+				continue;
+			}
+			if (Files.isRegularFile(filePath)) {
+				workspaceFileURIs.add(uri);
+			} else {
+				workspaceFileURIs.remove(uri);
+			}
+		}
+	}
+
 	public GroovyLSCompilationUnit create(Path workspaceRoot, FileContentsTracker fileContentsTracker) {
 		if (config == null) {
 			config = getConfiguration();
@@ -114,9 +156,16 @@ public class CompilationUnitFactory implements ICompilationUnitFactory {
 
 	protected CompilerConfiguration getConfiguration() {
 		CompilerConfiguration config = new CompilerConfiguration();
+		// the language server never compiles far enough to write class files,
+		// so a target directory from the groovy.target.directory system
+		// property is ignored
+		config.setTargetDirectory((File) null);
 
 		Map<String, Boolean> optimizationOptions = new HashMap<>();
 		optimizationOptions.put(CompilerConfiguration.GROOVYDOC, true);
+		// source units are parsed on the common fork-join pool
+		optimizationOptions.put(CompilerConfiguration.PARALLEL_PARSE, true);
+		optimizationOptions.putAll(this.optimizationOptions);
 		config.setOptimizationOptions(optimizationOptions);
 
 		List<String> classpathList = new ArrayList<>();
@@ -159,26 +208,17 @@ public class CompilationUnitFactory implements ICompilationUnitFactory {
 
 	protected void addDirectoryToCompilationUnit(Path dirPath, GroovyLSCompilationUnit compilationUnit,
 			FileContentsTracker fileContentsTracker, Set<URI> changedUris) {
-		try {
-			if (Files.exists(dirPath)) {
-				Files.walk(dirPath).forEach((filePath) -> {
-					if (!filePath.toString().endsWith(FILE_EXTENSION_GROOVY)) {
-						return;
-					}
-					URI fileURI = filePath.toUri();
-					if (!fileContentsTracker.isOpen(fileURI)) {
-						File file = filePath.toFile();
-						if (file.isFile()) {
-							if (changedUris == null || changedUris.contains(fileURI)) {
-								compilationUnit.addSource(file);
-							}
-						}
-					}
-				});
+		for (URI fileURI : getWorkspaceFileURIs(dirPath)) {
+			if (fileContentsTracker.isOpen(fileURI)) {
+				continue;
+			}
+			if (changedUris != null && !changedUris.contains(fileURI)) {
+				continue;
+			}
+			File file = Paths.get(fileURI).toFile();
+			if (file.isFile()) {
+				compilationUnit.addSource(file);
 			}
-
-		} catch (IOException e) {
-			System.err.println("Failed to walk directory for source files: " + dirPath);
 		}
 		fileContentsTracker.getOpenURIs().forEach(uri -> {
 			Path openPath = Paths.get(uri);
@@ -193,6 +233,35 @@ public class CompilationUnitFactory implements ICompilationUnitFactory {
 		});
 	}
 
+	/**
+	 * Returns the .groovy files in the workspace. The directory is walked
+	 * only the first time, and then the files are updated by
+	 * updateWorkspaceFiles(), so that compiling doesn't need to access the
+	 * file system for every file.
+	 */
+	protected Set<URI> getWorkspaceFileURIs(Path dirPath) {
+		if (workspaceFileURIs != null && dirPath.equals(workspaceFilesRoot)) {
+			return workspaceFileURIs;
+		}
+		workspaceFilesRoot = dirPath;
+		workspaceFileURIs = new LinkedHashSet<>();
+		try {
+			if (Files.exists(dirPath)) {
+				Files.walk(dirPath).forEach((filePath) -> {
+					if (!filePath.toString().endsWith(FILE_EXTENSION_GROOVY)) {
+						return;
+					}
+					if (Files.isRegularFile(filePath)) {
+						workspaceFileURIs.add(filePath.toUri());
+					}
+				});
+			}
+		} catch (IOException e) {
+			System.err.println("Failed to walk directory for source files: " + dirPath);
+		}
+		return workspaceFileURIs;
+	}
+
 	protected void addOpenFileToCompilationUnit(URI uri, String contents, GroovyLSCompilationUnit compilationUnit) {
 		Path filePath = Paths.get(uri);
 		SourceUnit sourceUnit = new SourceUnit(filePath.toString(),
@@ -19,8 +19,11 @@
 ////////////////////////////////////////////////////////////////////////////////
 package net.prominic.groovyls.config;
 
+import java.net.URI;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import net.prominic.groovyls.compiler.control.GroovyLSCompilationUnit;
 import net.prominic.groovyls.util.FileContentsTracker;
@@ -32,10 +35,31 @@ public interface ICompilationUnitFactory {
 	 */
 	public void invalidateCompilationUnit();
 
+	/**
+	 * Forces the creation of a new compilation unit, like
+	 * invalidateCompilationUnit(), but keeps the same configuration and class
+	 * loader.
+	 */
+	public void resetCompilationUnit();
+
 	public List<String> getAdditionalClasspathList();
 
 	public void setAdditionalClasspathList(List<String> classpathList);
 
+	/**
+	 * Returns the optimization options that override the defaults of the
+	 * compiler configuration, keyed by the CompilerConfiguration constants.
+	 */
+	public Map<String, Boolean> getOptimizationOptions();
+
+	public void setOptimizationOptions(Map<String, Boolean> optimizationOptions);
+
+	/**
+	 * Updates the factory's list of source files in the workspace after the
+	 * specified files are created, changed, or deleted.
+	 */
+	public void updateWorkspaceFiles(Set<URI> uris);
+
 	/**
 	 * Returns a compilation unit.
 	 */
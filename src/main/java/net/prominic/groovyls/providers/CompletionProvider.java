@@ -32,11 +32,13 @@ import java.util.stream.Collectors;
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.AnnotatedNode;
 import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.DynamicVariable;
 import org.codehaus.groovy.ast.FieldNode;
 import org.codehaus.groovy.ast.ImportNode;
 import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.Variable;
 import org.codehaus.groovy.ast.VariableScope;
 import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
 import org.codehaus.groovy.ast.expr.Expression;
@@ -57,23 +59,31 @@ import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.TextEdit;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 
-import io.github.classgraph.ClassInfo;
-import io.github.classgraph.PackageInfo;
-import io.github.classgraph.ScanResult;
 import net.prominic.groovyls.compiler.ast.ASTNodeVisitor;
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex;
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex.ClassEntry;
+import net.prominic.groovyls.compiler.classpath.PackageIndex.PackageNode;
 import net.prominic.groovyls.compiler.util.GroovyASTUtils;
 import net.prominic.groovyls.compiler.util.GroovydocUtils;
 import net.prominic.groovyls.util.GroovyLanguageServerUtils;
 
 public class CompletionProvider {
 	private ASTNodeVisitor ast;
-	private ScanResult classGraphScanResult;
+	private ClasspathIndex classpathIndex;
+	private boolean classpathScanPending;
 	private int maxItemCount = 1000;
 	private boolean isIncomplete = false;
 
-	public CompletionProvider(ASTNodeVisitor ast, ScanResult classGraphScanResult) {
+	/**
+	 * @param classpathIndex       the classes and packages on the classpath.
+	 *                             May be null.
+	 * @param classpathScanPending if the classpath is still being scanned,
+	 *                             and the classpath index isn't available yet
+	 */
+	public CompletionProvider(ASTNodeVisitor ast, ClasspathIndex classpathIndex, boolean classpathScanPending) {
 		this.ast = ast;
-		this.classGraphScanResult = classGraphScanResult;
+		this.classpathIndex = classpathIndex;
+		this.classpathScanPending = classpathScanPending;
 	}
 
 	public CompletableFuture<Either<List<CompletionItem>, CompletionList>> provideCompletion(
@@ -129,6 +139,10 @@ public class CompletionProvider {
 		}
 		String memberName = getMemberName(propExpr.getPropertyAsString(), propertyRange, position);
 		populateItemsFromExpression(propExpr.getObjectExpression(), memberName, items);
+		String packageName = getPackageName(propExpr.getObjectExpression());
+		if (packageName != null) {
+			populateItemsFromPackage(packageName, memberName, items);
+		}
 	}
 
 	private void populateItemsFromMethodCallExpression(MethodCallExpression methodCallExpr, Position position,
@@ -159,84 +173,91 @@ public class CompletionProvider {
 				.map(otherImportNode -> otherImportNode.getClassName()).collect(Collectors.toList())
 				: Collections.emptyList();
 
-		List<CompletionItem> localClassItems = ast.getClassNodes().stream().filter(classNode -> {
-			String packageName = classNode.getPackageName();
-			if (packageName == null || packageName.length() == 0 || packageName.equals(enclosingPackageName)) {
-				return false;
-			}
-			String className = classNode.getName();
-			String classNameWithoutPackage = classNode.getNameWithoutPackage();
-			if (!className.startsWith(importText) && !classNameWithoutPackage.startsWith(importText)) {
-				return false;
-			}
-			if (importNames.contains(className)) {
-				return false;
+		List<ClasspathIndex> classIndexes = getClassIndexes();
+		int dotIndex = importText.lastIndexOf('.');
+		String parentPackageName = dotIndex != -1 ? importText.substring(0, dotIndex) : "";
+		String namePrefix = importText.substring(dotIndex + 1);
+
+		Set<String> existingNames = new HashSet<>();
+		List<ClassEntry> classes = new ArrayList<>();
+		for (ClasspathIndex classIndex : classIndexes) {
+			PackageNode packageNode = classIndex.getPackageIndex().findPackage(parentPackageName);
+			if (packageNode == null) {
+				continue;
 			}
-			return true;
-		}).map(classNode -> {
-			CompletionItem item = new CompletionItem();
-			item.setLabel(classNode.getName());
-			item.setTextEdit(Either.forLeft(new TextEdit(importRange, classNode.getName())));
-			item.setKind(GroovyLanguageServerUtils.astNodeToCompletionItemKind(classNode));
-			if (classNode.getNameWithoutPackage().startsWith(importText)) {
-				item.setSortText(classNode.getNameWithoutPackage());
+			for (PackageNode childNode : packageNode.findChildren(namePrefix)) {
+				String packageName = childNode.getName();
+				if (!existingNames.add(packageName)) {
+					continue;
+				}
+				CompletionItem item = new CompletionItem();
+				item.setLabel(packageName);
+				item.setTextEdit(Either.forLeft(new TextEdit(importRange, packageName)));
+				item.setKind(CompletionItemKind.Module);
+				items.add(item);
 			}
-			String markdownDocs = GroovydocUtils.groovydocToMarkdownDescription(classNode.getGroovydoc());
-			if (markdownDocs != null) {
-				item.setDocumentation(new MarkupContent(MarkupKind.MARKDOWN, markdownDocs));
+			if (dotIndex != -1) {
+				classes.addAll(packageNode.findClasses(namePrefix));
+			} else {
+				// a class may also be found by its name without the package
+				classes.addAll(classIndex.findClasses(importText, maxItemCount + 1));
 			}
-			return item;
-		}).collect(Collectors.toList());
-		items.addAll(localClassItems);
-
-		if (classGraphScanResult == null) {
-			return;
 		}
-		List<ClassInfo> classes = classGraphScanResult.getAllClasses();
-		List<PackageInfo> packages = classGraphScanResult.getPackageInfo();
 
-		List<CompletionItem> packageItems = packages.stream().filter(packageInfo -> {
-			String packageName = packageInfo.getName();
-			if (packageName.startsWith(importText)) {
-				return true;
-			}
-			return false;
-		}).map(packageInfo -> {
-			CompletionItem item = new CompletionItem();
-			item.setLabel(packageInfo.getName());
-			item.setTextEdit(Either.forLeft(new TextEdit(importRange, packageInfo.getName())));
-			item.setKind(CompletionItemKind.Module);
-			return item;
-		}).collect(Collectors.toList());
-		items.addAll(packageItems);
-
-		List<CompletionItem> classItems = classes.stream().filter(classInfo -> {
-			String packageName = classInfo.getPackageName();
-			if (packageName == null || packageName.length() == 0 || packageName.equals(enclosingPackageName)) {
+		List<CompletionItem> classItems = classes.stream().filter(classEntry -> {
+			String packageName = classEntry.getPackageName();
+			if (packageName.length() == 0 || packageName.equals(enclosingPackageName)) {
 				return false;
 			}
-			String className = classInfo.getName();
-			String classNameWithoutPackage = classInfo.getSimpleName();
-			if (!className.startsWith(importText) && !classNameWithoutPackage.startsWith(importText)) {
+			String className = classEntry.getName();
+			if (importNames.contains(className) || existingNames.contains(className)) {
 				return false;
 			}
-			if (importNames.contains(className)) {
+			if (existingNames.size() >= maxItemCount) {
+				isIncomplete = true;
 				return false;
 			}
+			existingNames.add(className);
 			return true;
-		}).map(classInfo -> {
+		}).map(classEntry -> {
+			String className = classEntry.getName();
 			CompletionItem item = new CompletionItem();
-			item.setLabel(classInfo.getName());
-			item.setTextEdit(Either.forLeft(new TextEdit(importRange, classInfo.getName())));
-			item.setKind(classInfoToCompletionItemKind(classInfo));
-			if (classInfo.getSimpleName().startsWith(importText)) {
-				item.setSortText(classInfo.getSimpleName());
+			item.setLabel(className);
+			item.setTextEdit(Either.forLeft(new TextEdit(importRange, className)));
+			ClassNode classNode = ast.getClassNodeByName(className);
+			if (classNode != null) {
+				item.setKind(GroovyLanguageServerUtils.astNodeToCompletionItemKind(classNode));
+				String markdownDocs = GroovydocUtils.groovydocToMarkdownDescription(classNode.getGroovydoc());
+				if (markdownDocs != null) {
+					item.setDocumentation(new MarkupContent(MarkupKind.MARKDOWN, markdownDocs));
+				}
+			} else {
+				item.setKind(classEntryToCompletionItemKind(classEntry));
+			}
+			if (classEntry.getSimpleName().startsWith(importText)) {
+				item.setSortText(classEntry.getSimpleName());
 			}
 			return item;
 		}).collect(Collectors.toList());
 		items.addAll(classItems);
 	}
 
+	/**
+	 * Returns the indexes of the source classes and of the classes on the
+	 * classpath, in that order.
+	 */
+	private List<ClasspathIndex> getClassIndexes() {
+		List<ClasspathIndex> result = new ArrayList<>();
+		result.add(ast.getSourceClassIndex());
+		if (classpathIndex != null) {
+			result.add(classpathIndex);
+		} else if (classpathScanPending) {
+			// ask for completion again after the scan has finished
+			isIncomplete = true;
+		}
+		return result;
+	}
+
 	private void populateItemsFromClassNode(ClassNode classNode, Position position, List<CompletionItem> items) {
 		ASTNode parentNode = ast.getParent(classNode);
 		if (!(parentNode instanceof ClassNode)) {
@@ -343,14 +364,72 @@ public class CompletionProvider {
 	private void populateItemsFromExpression(Expression leftSide, String memberNamePrefix, List<CompletionItem> items) {
 		Set<String> existingNames = new HashSet<>();
 
-		List<PropertyNode> properties = GroovyASTUtils.getPropertiesForLeftSideOfPropertyExpression(leftSide, ast);
-		List<FieldNode> fields = GroovyASTUtils.getFieldsForLeftSideOfPropertyExpression(leftSide, ast);
+		List<PropertyNode> properties = GroovyASTUtils.getPropertiesForLeftSideOfPropertyExpression(leftSide,
+				memberNamePrefix, ast);
+		List<FieldNode> fields = GroovyASTUtils.getFieldsForLeftSideOfPropertyExpression(leftSide, memberNamePrefix,
+				ast);
 		populateItemsFromPropertiesAndFields(properties, fields, memberNamePrefix, existingNames, items);
 
-		List<MethodNode> methods = GroovyASTUtils.getMethodsForLeftSideOfPropertyExpression(leftSide, ast);
+		List<MethodNode> methods = GroovyASTUtils.getMethodsForLeftSideOfPropertyExpression(leftSide, memberNamePrefix,
+				ast);
 		populateItemsFromMethods(methods, memberNamePrefix, existingNames, items);
 	}
 
+	private void populateItemsFromPackage(String packageName, String namePrefix, List<CompletionItem> items) {
+		Set<String> existingNames = new HashSet<>();
+		for (ClasspathIndex classIndex : getClassIndexes()) {
+			PackageNode packageNode = classIndex.getPackageIndex().findPackage(packageName);
+			if (packageNode == null) {
+				continue;
+			}
+			for (PackageNode childNode : packageNode.findChildren(namePrefix)) {
+				String childName = childNode.getName();
+				if (!existingNames.add(childName)) {
+					continue;
+				}
+				CompletionItem item = new CompletionItem();
+				item.setLabel(childName.substring(packageName.length() + 1));
+				item.setKind(CompletionItemKind.Module);
+				items.add(item);
+			}
+			for (ClassEntry classEntry : packageNode.findClasses(namePrefix)) {
+				if (!existingNames.add(classEntry.getName())) {
+					continue;
+				}
+				CompletionItem item = new CompletionItem();
+				item.setLabel(classEntry.getSimpleName());
+				item.setDetail(packageName);
+				item.setKind(classEntryToCompletionItemKind(classEntry));
+				items.add(item);
+			}
+		}
+	}
+
+	/**
+	 * Returns the package name that an expression like java.util could refer
+	 * to, or null if the expression can't be a package name.
+	 */
+	private String getPackageName(Expression expression) {
+		if (expression instanceof VariableExpression) {
+			VariableExpression varExpr = (VariableExpression) expression;
+			Variable accessedVariable = varExpr.getAccessedVariable();
+			if (accessedVariable != null && !(accessedVariable instanceof DynamicVariable)) {
+				return null;
+			}
+			return varExpr.getName();
+		}
+		if (expression instanceof PropertyExpression) {
+			PropertyExpression propExpr = (PropertyExpression) expression;
+			String parentName = getPackageName(propExpr.getObjectExpression());
+			String propertyName = propExpr.getPropertyAsString();
+			if (parentName == null || propertyName == null) {
+				return null;
+			}
+			return parentName + "." + propertyName;
+		}
+		return null;
+	}
+
 	private void populateItemsFromVariableScope(VariableScope variableScope, String memberNamePrefix,
 			Set<String> existingNames, List<CompletionItem> items) {
 		List<CompletionItem> variableItems = variableScope.getDeclaredVariables().values().stream().filter(variable -> {
@@ -452,12 +531,18 @@ public class CompletionProvider {
 		}).collect(Collectors.toList());
 		items.addAll(localClassItems);
 
-		if (classGraphScanResult == null) {
+		if (classpathIndex == null) {
+			if (classpathScanPending) {
+				// ask for completion again after the scan has finished
+				isIncomplete = true;
+			}
 			return;
 		}
-		List<ClassInfo> classes = classGraphScanResult.getAllClasses();
+		// one extra result is enough to know whether the list is incomplete,
+		// even if every existing name is found again
+		List<ClassEntry> classes = classpathIndex.findClasses(namePrefix, maxItemCount + existingNames.size() + 1);
 
-		List<CompletionItem> classItems = classes.stream().filter(classInfo -> {
+		List<CompletionItem> classItems = classes.stream().filter(classEntry -> {
 			if (isIncomplete) {
 				return false;
 			}
@@ -465,20 +550,19 @@ public class CompletionProvider {
 				isIncomplete = true;
 				return false;
 			}
-			String className = classInfo.getName();
-			String classNameWithoutPackage = classInfo.getSimpleName();
-			if (classNameWithoutPackage.startsWith(namePrefix) && !existingNames.contains(className)) {
+			String className = classEntry.getName();
+			if (!existingNames.contains(className)) {
 				existingNames.add(className);
 				return true;
 			}
 			return false;
-		}).map(classInfo -> {
-			String className = classInfo.getName();
-			String packageName = classInfo.getPackageName();
+		}).map(classEntry -> {
+			String className = classEntry.getName();
+			String packageName = classEntry.getPackageName();
 			CompletionItem item = new CompletionItem();
-			item.setLabel(classInfo.getSimpleName());
+			item.setLabel(classEntry.getSimpleName());
 			item.setDetail(packageName);
-			item.setKind(classInfoToCompletionItemKind(classInfo));
+			item.setKind(classEntryToCompletionItemKind(classEntry));
 			if (packageName != null && !packageName.equals(enclosingPackageName) && !importNames.contains(className)) {
 				List<TextEdit> additionalTextEdits = new ArrayList<>();
 				TextEdit addImportEdit = createAddImportTextEdit(className, addImportRange);
@@ -501,11 +585,11 @@ public class CompletionProvider {
 		return "";
 	}
 
-	private CompletionItemKind classInfoToCompletionItemKind(ClassInfo classInfo) {
-		if (classInfo.isInterface()) {
+	private CompletionItemKind classEntryToCompletionItemKind(ClassEntry classEntry) {
+		if (classEntry.getKind() == ClasspathIndex.Kind.INTERFACE) {
 			return CompletionItemKind.Interface;
 		}
-		if (classInfo.isEnum()) {
+		if (classEntry.getKind() == ClasspathIndex.Kind.ENUM) {
 			return CompletionItemKind.Enum;
 		}
 		return CompletionItemKind.Class;
@@ -50,7 +50,7 @@ import net.prominic.groovyls.compiler.ast.ASTNodeVisitor;
 import net.prominic.groovyls.compiler.util.GroovyASTUtils;
 import net.prominic.groovyls.util.FileContentsTracker;
 import net.prominic.groovyls.util.GroovyLanguageServerUtils;
-import net.prominic.lsp.utils.Ranges;
+import net.prominic.lsp.utils.LineOffsets;
 
 public class RenameProvider {
 	private ASTNodeVisitor ast;
@@ -156,11 +156,11 @@ public class RenameProvider {
 		if (range == null) {
 			return null;
 		}
-		String contents = files.getContents(uri);
-		if (contents == null) {
+		LineOffsets lineOffsets = files.getLineOffsets(uri);
+		if (lineOffsets == null) {
 			return null;
 		}
-		return Ranges.getSubstring(contents, range, 1);
+		return lineOffsets.getSubstring(range, 1);
 	}
 
 	private TextEdit createTextEditToRenameClassNode(ClassNode classNode, String newName, String text, Range range) {
@@ -33,10 +33,12 @@ import org.codehaus.groovy.ast.PropertyNode;
 import org.eclipse.lsp4j.SymbolInformation;
 
 import net.prominic.groovyls.compiler.ast.ASTNodeVisitor;
-import net.prominic.groovyls.compiler.util.GroovyASTUtils;
+import net.prominic.groovyls.compiler.ast.WorkspaceSymbolIndex;
 import net.prominic.groovyls.util.GroovyLanguageServerUtils;
 
 public class WorkspaceSymbolProvider {
+	private static final int MAX_RESULTS = 1000;
+
 	private ASTNodeVisitor ast;
 
 	public WorkspaceSymbolProvider(ASTNodeVisitor ast) {
@@ -49,45 +51,26 @@ public class WorkspaceSymbolProvider {
 			// goes terribly wrong.
 			return CompletableFuture.completedFuture(Collections.emptyList());
 		}
-		String lowerCaseQuery = query.toLowerCase();
-		List<ASTNode> nodes = ast.getNodes();
-		List<SymbolInformation> symbols = nodes.stream().filter(node -> {
-			String name = null;
-			if (node instanceof ClassNode) {
-				ClassNode classNode = (ClassNode) node;
-				name = classNode.getName();
-			} else if (node instanceof MethodNode) {
-				MethodNode methodNode = (MethodNode) node;
-				name = methodNode.getName();
-			} else if (node instanceof FieldNode) {
-				FieldNode fieldNode = (FieldNode) node;
-				name = fieldNode.getName();
-			} else if (node instanceof PropertyNode) {
-				PropertyNode propNode = (PropertyNode) node;
-				name = propNode.getName();
-			}
-			if (name == null) {
-				return false;
-			}
-			return name.toLowerCase().contains(lowerCaseQuery);
-		}).map(node -> {
-			URI uri = ast.getURI(node);
+		List<WorkspaceSymbolIndex.Symbol> indexedSymbols = ast.getWorkspaceSymbols(query, MAX_RESULTS);
+		List<SymbolInformation> symbols = indexedSymbols.stream().map(symbol -> {
+			ASTNode node = symbol.getNode();
+			URI uri = symbol.getURI();
+			String containerName = symbol.getContainerName();
 			if (node instanceof ClassNode) {
 				ClassNode classNode = (ClassNode) node;
 				return GroovyLanguageServerUtils.astNodeToSymbolInformation(classNode, uri, null);
 			}
-			ClassNode classNode = (ClassNode) GroovyASTUtils.getEnclosingNodeOfType(node, ClassNode.class, ast);
 			if (node instanceof MethodNode) {
 				MethodNode methodNode = (MethodNode) node;
-				return GroovyLanguageServerUtils.astNodeToSymbolInformation(methodNode, uri, classNode.getName());
+				return GroovyLanguageServerUtils.astNodeToSymbolInformation(methodNode, uri, containerName);
 			}
 			if (node instanceof PropertyNode) {
 				PropertyNode propNode = (PropertyNode) node;
-				return GroovyLanguageServerUtils.astNodeToSymbolInformation(propNode, uri, classNode.getName());
+				return GroovyLanguageServerUtils.astNodeToSymbolInformation(propNode, uri, containerName);
 			}
 			if (node instanceof FieldNode) {
 				FieldNode fieldNode = (FieldNode) node;
-				return GroovyLanguageServerUtils.astNodeToSymbolInformation(fieldNode, uri, classNode.getName());
+				return GroovyLanguageServerUtils.astNodeToSymbolInformation(fieldNode, uri, containerName);
 			}
 			// this should never happen
 			return null;
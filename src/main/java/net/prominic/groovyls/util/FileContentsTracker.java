@@ -35,65 +35,71 @@ import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 
-import net.prominic.lsp.utils.Positions;
+import net.prominic.lsp.utils.LineOffsets;
 
 public class FileContentsTracker {
 
 	private Map<URI, String> openFiles = new HashMap<>();
 	private Set<URI> changedFiles = new HashSet<>();
+	private Map<URI, LineOffsets> lineOffsetsCache = new HashMap<>();
 
-	public Set<URI> getOpenURIs() {
-		return openFiles.keySet();
+	public synchronized Set<URI> getOpenURIs() {
+		return new HashSet<>(openFiles.keySet());
 	}
 
-	public Set<URI> getChangedURIs() {
-		return changedFiles;
+	public synchronized Set<URI> getChangedURIs() {
+		return new HashSet<>(changedFiles);
 	}
 
-	public void resetChangedFiles() {
+	public synchronized void resetChangedFiles() {
 		changedFiles = new HashSet<>();
 	}
 
-	public void forceChanged(URI uri) {
+	public synchronized void forceChanged(URI uri) {
 		changedFiles.add(uri);
 	}
 
-	public boolean isOpen(URI uri) {
+	public synchronized boolean isOpen(URI uri) {
 		return openFiles.containsKey(uri);
 	}
 
-	public void didOpen(DidOpenTextDocumentParams params) {
+	public synchronized void didOpen(DidOpenTextDocumentParams params) {
 		URI uri = URI.create(params.getTextDocument().getUri());
 		openFiles.put(uri, params.getTextDocument().getText());
 		changedFiles.add(uri);
 	}
 
-	public void didChange(DidChangeTextDocumentParams params) {
+	public synchronized void didChange(DidChangeTextDocumentParams params) {
 		URI uri = URI.create(params.getTextDocument().getUri());
-		String oldText = openFiles.get(uri);
-		TextDocumentContentChangeEvent change = params.getContentChanges().get(0);
-		Range range = change.getRange();
-		if (range == null) {
-			openFiles.put(uri, change.getText());
-		} else {
-			int offsetStart = Positions.getOffset(oldText, change.getRange().getStart());
-			int offsetEnd = Positions.getOffset(oldText, change.getRange().getEnd());
-			StringBuilder builder = new StringBuilder();
-			builder.append(oldText.substring(0, offsetStart));
-			builder.append(change.getText());
-			builder.append(oldText.substring(offsetEnd));
-			openFiles.put(uri, builder.toString());
+		String text = openFiles.get(uri);
+		for (TextDocumentContentChangeEvent change : params.getContentChanges()) {
+			Range range = change.getRange();
+			if (range == null || text == null) {
+				text = change.getText();
+			} else {
+				LineOffsets lineOffsets = getLineOffsets(uri, text);
+				int offsetStart = lineOffsets.getOffset(range.getStart());
+				int offsetEnd = lineOffsets.getOffset(range.getEnd());
+				StringBuilder builder = new StringBuilder(text.length() - (offsetEnd - offsetStart)
+						+ change.getText().length());
+				builder.append(text, 0, offsetStart);
+				builder.append(change.getText());
+				builder.append(text, offsetEnd, text.length());
+				text = builder.toString();
+			}
+			openFiles.put(uri, text);
 		}
 		changedFiles.add(uri);
 	}
 
-	public void didClose(DidCloseTextDocumentParams params) {
+	public synchronized void didClose(DidCloseTextDocumentParams params) {
 		URI uri = URI.create(params.getTextDocument().getUri());
 		openFiles.remove(uri);
+		lineOffsetsCache.remove(uri);
 		changedFiles.add(uri);
 	}
 
-	public String getContents(URI uri) {
+	public synchronized String getContents(URI uri) {
 		if (!openFiles.containsKey(uri)) {
 			BufferedReader reader = null;
 			try {
@@ -118,7 +124,32 @@ public class FileContentsTracker {
 		return openFiles.get(uri);
 	}
 
-	public void setContents(URI uri, String contents) {
+	public synchronized void setContents(URI uri, String contents) {
 		openFiles.put(uri, contents);
 	}
+
+	/**
+	 * Returns the line offsets of a file. For open files, the table is cached
+	 * until the file's contents change.
+	 */
+	public synchronized LineOffsets getLineOffsets(URI uri) {
+		String contents = openFiles.get(uri);
+		if (contents == null) {
+			contents = getContents(uri);
+			if (contents == null) {
+				return null;
+			}
+			return new LineOffsets(contents);
+		}
+		return getLineOffsets(uri, contents);
+	}
+
+	private LineOffsets getLineOffsets(URI uri, String contents) {
+		LineOffsets lineOffsets = lineOffsetsCache.get(uri);
+		if (lineOffsets == null || lineOffsets.getText() != contents) {
+			lineOffsets = new LineOffsets(contents);
+			lineOffsetsCache.put(uri, lineOffsets);
+		}
+		return lineOffsets;
+	}
 }
\ No newline at end of file
@@ -29,6 +29,8 @@ import org.codehaus.groovy.ast.PropertyNode;
 import org.codehaus.groovy.ast.Variable;
 import org.codehaus.groovy.syntax.SyntaxException;
 import org.eclipse.lsp4j.CompletionItemKind;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.DiagnosticSeverity;
 import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
@@ -71,6 +73,19 @@ public class GroovyLanguageServerUtils {
 		return new Range(start, end);
 	}
 
+	public static Diagnostic syntaxExceptionToDiagnostic(SyntaxException exception) {
+		Range range = syntaxExceptionToRange(exception);
+		if (range == null) {
+			// range can't be null in a Diagnostic, so we need a fallback
+			range = new Range(new Position(0, 0), new Position(0, 0));
+		}
+		Diagnostic diagnostic = new Diagnostic();
+		diagnostic.setRange(range);
+		diagnostic.setSeverity(exception.isFatal() ? DiagnosticSeverity.Error : DiagnosticSeverity.Warning);
+		diagnostic.setMessage(exception.getMessage());
+		return diagnostic;
+	}
+
 	/**
 	 * Converts a Groovy AST node to an LSP range.
 	 * 
@@ -0,0 +1,137 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.lsp.utils;
+
+import java.util.Arrays;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+
+/**
+ * An immutable table of the offsets where each line of a string starts, used
+ * to convert between LSP positions and string offsets without scanning the
+ * whole string every time.
+ */
+public class LineOffsets {
+	private String text;
+	private int[] lineStarts;
+	private int lineCount;
+
+	public LineOffsets(String text) {
+		this.text = text;
+		lineStarts = new int[16];
+		lineCount = 1;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(i) != '\n') {
+				continue;
+			}
+			if (lineCount == lineStarts.length) {
+				lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+			}
+			lineStarts[lineCount] = i + 1;
+			lineCount++;
+		}
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Returns the offset of the start of the specified line, or -1 if the line
+	 * does not exist.
+	 */
+	public int getLineStart(int line) {
+		if (line < 0 || line >= lineCount) {
+			return -1;
+		}
+		return lineStarts[line];
+	}
+
+	/**
+	 * Returns the offset of the specified position, or -1 if its line does
+	 * not exist. Like the LSP, a character beyond the end of a line is not
+	 * clamped.
+	 */
+	public int getOffset(Position position) {
+		int line = position.getLine();
+		if (line <= 0) {
+			return position.getCharacter();
+		}
+		int lineStart = getLineStart(line);
+		if (lineStart == -1) {
+			return -1;
+		}
+		return lineStart + position.getCharacter();
+	}
+
+	public Position getPosition(int offset) {
+		int low = 0;
+		int high = lineCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (lineStarts[mid] <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return new Position(low, offset - lineStarts[low]);
+	}
+
+	public String getSubstring(Range range) {
+		return getSubstring(range, 0);
+	}
+
+	/**
+	 * Returns the text in the specified range. If maxLines is greater than
+	 * zero, and the range contains more lines, the result is cut off at the
+	 * start of the last allowed line.
+	 */
+	public String getSubstring(Range range, int maxLines) {
+		Position start = range.getStart();
+		Position end = range.getEnd();
+		int endLine = end.getLine();
+		int endChar = end.getCharacter();
+		int lineCount = 1 + (endLine - start.getLine());
+		if (maxLines > 0 && lineCount > maxLines) {
+			endLine = start.getLine() + maxLines - 1;
+			endChar = 0;
+		}
+		int startOffset = clamp(getOffset(start));
+		int endOffset = clamp(getOffset(new Position(endLine, endChar)));
+		if (endOffset <= startOffset) {
+			return "";
+		}
+		return text.substring(startOffset, endOffset);
+	}
+
+	private int clamp(int offset) {
+		if (offset == -1 || offset > text.length()) {
+			return text.length();
+		}
+		return offset;
+	}
+}
\ No newline at end of file
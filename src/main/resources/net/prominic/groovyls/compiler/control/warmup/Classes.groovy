@@ -0,0 +1,190 @@
+package warmup
+
+import groovy.transform.CompileStatic
+import groovy.transform.ToString
+import java.util.concurrent.atomic.AtomicInteger
+
+import static java.util.Collections.emptyList
+
+@ToString(includeNames = true)
+class Person implements Comparable<Person> {
+	static final String UNKNOWN = 'unknown'
+
+	String name = UNKNOWN
+	int age
+	List<String> tags = []
+	private final AtomicInteger visits = new AtomicInteger()
+
+	Person() {
+	}
+
+	Person(String name, int age) {
+		this.name = name
+		this.age = age
+	}
+
+	/**
+	 * Returns a greeting for this person.
+	 */
+	String greet(String greeting = 'Hello') {
+		return "${greeting}, ${name}! You are ${age} years old."
+	}
+
+	boolean isAdult() {
+		age >= 18
+	}
+
+	int visit() {
+		visits.incrementAndGet()
+	}
+
+	@Override
+	int compareTo(Person other) {
+		name <=> other.name ?: age <=> other.age
+	}
+}
+
+interface Shape {
+	double area()
+
+	default String describe() {
+		"${getClass().simpleName} with area ${String.format('%.2f', area())}"
+	}
+}
+
+@CompileStatic
+class Circle implements Shape {
+	double radius
+
+	double area() {
+		Math.PI * radius * radius
+	}
+}
+
+class Rectangle implements Shape {
+	double width, height
+
+	double area() {
+		width * height
+	}
+}
+
+enum Color {
+	RED('#ff0000'), GREEN('#00ff00'), BLUE('#0000ff')
+
+	final String hex
+
+	Color(String hex) {
+		this.hex = hex
+	}
+}
+
+trait Named {
+	abstract String getName()
+
+	String upperName() {
+		name?.toUpperCase()
+	}
+}
+
+abstract class Repository<T, ID extends Serializable> {
+	protected Map<ID, T> items = [:]
+
+	abstract ID idOf(T item)
+
+	T save(T item) {
+		items[idOf(item)] = item
+		item
+	}
+
+	Optional<T> find(ID id) {
+		Optional.ofNullable(items.get(id))
+	}
+
+	List<T> findAll(Closure<Boolean> filter = { true }) {
+		items.values().findAll(filter).toList()
+	}
+}
+
+class PersonRepository extends Repository<Person, String> {
+	String idOf(Person person) {
+		person.name
+	}
+
+	List<Person> adults() {
+		findAll { Person person -> person.adult }.sort()
+	}
+}
+
+class Calculator {
+	static int fibonacci(int n) {
+		if (n < 2) {
+			return n
+		}
+		int previous = 0, current = 1
+		for (int i = 2; i <= n; i++) {
+			int next = previous + current
+			previous = current
+			current = next
+		}
+		current
+	}
+
+	static String classify(Object value) {
+		switch (value) {
+			case null:
+				return 'null'
+			case Integer:
+			case Long:
+				return 'integer'
+			case ~/\d+\.\d+/:
+				return 'decimal string'
+			case [1, 2, 3]:
+				return 'small'
+			case { it instanceof Collection }:
+				return 'collection'
+			default:
+				return 'other'
+		}
+	}
+
+	static String grade(int score) {
+		switch (score) {
+			case 90..100 -> 'A'
+			case 80..<90 -> 'B'
+			default -> 'C'
+		}
+	}
+
+	static List<Integer> squares(List<Integer> values) {
+		values.stream().map(value -> value * value).filter(value -> value % 2 == 0).toList()
+	}
+
+	static int safeDivide(int a, int b) {
+		try {
+			return a.intdiv(b)
+		} catch (ArithmeticException e) {
+			return 0
+		} finally {
+			emptyList()
+		}
+	}
+}
+
+class Outer {
+	int count
+
+	class Inner {
+		int doubled() {
+			count * 2
+		}
+	}
+
+	Runnable task() {
+		new Runnable() {
+			void run() {
+				count++
+			}
+		}
+	}
+}
\ No newline at end of file
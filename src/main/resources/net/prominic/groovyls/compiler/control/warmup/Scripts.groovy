@@ -0,0 +1,95 @@
+import groovy.json.JsonSlurper
+import groovy.xml.MarkupBuilder
+
+def numbers = [5, 3, 8, 1, 9, 2]
+def sorted = numbers.sort(false)
+def evens = numbers.findAll { it % 2 == 0 }
+def total = numbers.inject(0) { sum, value -> sum + value }
+def (min, max) = [numbers.min(), numbers.max()]
+def ranges = (1..10).step(2).collect { it * it }
+def people = [
+	[name: 'Ada', age: 36],
+	[name: 'Alan', age: 41],
+	[name: 'Grace', age: 85]
+]
+def names = people*.name
+def oldest = people.max { it.age }
+def byFirstLetter = people.groupBy { it.name[0] }
+def text = """\
+	Sorted: ${sorted.join(', ')}
+	Evens: $evens
+	Total: ${total}
+	Range: ${min}..${max}
+""".stripIndent()
+def pattern = ~/(\w+)@(\w+)\.com/
+def matcher = 'ada@example.com' =~ pattern
+if (matcher.matches()) {
+	println "user ${matcher[0][1]} at ${matcher[0][2]}"
+}
+def slashy = /a\/b\/c/
+def dollarSlashy = $/path/to/${names[0]}/$
+def multiline = '''first
+second'''
+
+def json = new JsonSlurper().parseText('{"items": [1, 2, 3], "name": "warmup"}')
+assert json.items.size() == 3 : 'three items'
+
+def writer = new StringWriter()
+new MarkupBuilder(writer).html {
+	head {
+		title 'Warm-up'
+	}
+	body {
+		people.each { person ->
+			div(class: 'person', person.name)
+		}
+	}
+}
+
+def memo = { int n -> n <= 1 ? n : call(n - 1) + call(n - 2) }.memoize()
+def compose = { it * 2 } >> { it + 1 }
+def curried = { a, b, c -> a + b + c }.curry(1, 2)
+def elvis = null ?: 'default'
+def safe = people[5]?.name?.toUpperCase()
+def spread = [*numbers, *ranges]
+def map = [*: people[0], role: 'admin']
+def bits = 1 << 4 | 0x0F & ~0b1010
+def power = 2 ** 10
+def ternary = total > 20 ? 'big' : 'small'
+def lambda = (int x, int y) -> x * y
+
+please show the square_root of 100
+take 3.pills of chloroquinine after 6.hours
+
+def please(action) {
+	[the: { what -> [of: { n -> println "$action $what of $n" }] }]
+}
+
+def take(n) {
+	[pills: { of -> [after: { hours -> println "$n $of $hours" }] }]
+}
+
+outer:
+for (i in 0..<3) {
+	for (j in 0..<3) {
+		if (i * j == 2) {
+			break outer
+		}
+		if (j == i) {
+			continue
+		}
+	}
+}
+
+int counter = 0
+while (counter < 10) {
+	counter += 3
+}
+do {
+	counter--
+} while (counter > 0)
+
+synchronized (this) {
+	println "$text $slashy $dollarSlashy $multiline $writer $memo $compose $curried $elvis $safe"
+	println "$spread $map $bits $power $ternary $lambda $oldest $byFirstLetter"
+}
\ No newline at end of file
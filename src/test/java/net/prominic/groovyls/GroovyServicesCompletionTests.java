@@ -22,6 +22,8 @@ package net.prominic.groovyls;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -30,14 +32,17 @@ import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
 import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.CompletionParams;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.MessageActionItem;
 import org.eclipse.lsp4j.MessageParams;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
 import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.junit.jupiter.api.AfterEach;
@@ -66,6 +71,8 @@ class GroovyServicesCompletionTests {
 
 		services = new GroovyServices(new CompilationUnitFactory());
 		services.setWorkspaceRoot(workspaceRoot);
+		// completion is incomplete until the classpath has been scanned
+		services.waitForClasspathScan();
 		services.connect(new LanguageClient() {
 
 			@Override
@@ -352,6 +359,68 @@ class GroovyServicesCompletionTests {
 		Assertions.assertEquals(1, filteredItems.size());
 	}
 
+	@Test
+	void testMemberAccessOnThisWithProperty() throws Exception {
+		Path filePath = srcRoot.resolve("Completion.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class Completion {\n");
+		contents.append("  String memberProp\n");
+		contents.append("  public Completion() {\n");
+		contents.append("    this.memb\n");
+		contents.append("  }\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(3, 13);
+		Either<List<CompletionItem>, CompletionList> result = services
+				.completion(new CompletionParams(textDocument, position)).get();
+		Assertions.assertTrue(result.isLeft());
+		List<CompletionItem> items = result.getLeft();
+		Assertions.assertEquals(1, items.size());
+		CompletionItem item = items.get(0);
+		Assertions.assertEquals("memberProp", item.getLabel());
+		Assertions.assertEquals(CompletionItemKind.Field, item.getKind());
+	}
+
+	@Test
+	void testMemberAccessOnThisAfterSuperclassChange() throws Exception {
+		Path baseFilePath = srcRoot.resolve("Base.groovy");
+		String baseURI = baseFilePath.toUri().toString();
+		String baseContents = "class Base {\n  void baseMethod() {}\n}";
+		TextDocumentItem baseTextDocumentItem = new TextDocumentItem(baseURI, LANGUAGE_GROOVY, 1, baseContents);
+		services.didOpen(new DidOpenTextDocumentParams(baseTextDocumentItem));
+
+		Path filePath = srcRoot.resolve("Completion.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class Completion extends Base {\n");
+		contents.append("  public Completion() {\n");
+		contents.append("    this.base\n");
+		contents.append("  }\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(2, 13);
+		Either<List<CompletionItem>, CompletionList> result = services
+				.completion(new CompletionParams(textDocument, position)).get();
+		Assertions.assertTrue(result.isLeft());
+		List<String> labels = result.getLeft().stream().map(CompletionItem::getLabel).collect(Collectors.toList());
+		Assertions.assertEquals(Arrays.asList("baseMethod"), labels);
+
+		String changedBaseContents = baseContents.replace("}\n}", "}\n  void baseMethod2() {}\n}");
+		TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent(changedBaseContents);
+		services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(baseURI, 2),
+				Collections.singletonList(changeEvent)));
+
+		result = services.completion(new CompletionParams(textDocument, position)).get();
+		Assertions.assertTrue(result.isLeft());
+		labels = result.getLeft().stream().map(CompletionItem::getLabel).collect(Collectors.toList());
+		Assertions.assertEquals(Arrays.asList("baseMethod", "baseMethod2"), labels);
+	}
+
 	@Test
 	void testCompletionForMemberVariableOnPartialVariableExpression() throws Exception {
 		Path filePath = srcRoot.resolve("Completion.groovy");
@@ -629,4 +698,75 @@ class GroovyServicesCompletionTests {
 		}).collect(Collectors.toList());
 		Assertions.assertEquals(1, filteredItems.size());
 	}
+
+	@Test
+	void testImportPackage() throws Exception {
+		Path filePath = srcRoot.resolve("Completion.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("import java.ut\n");
+		contents.append("class Completion {\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(0, 14);
+		Either<List<CompletionItem>, CompletionList> result = services
+				.completion(new CompletionParams(textDocument, position)).get();
+		Assertions.assertTrue(result.isLeft());
+		List<CompletionItem> items = result.getLeft();
+		List<CompletionItem> filteredItems = items.stream().filter(item -> {
+			return item.getLabel().equals("java.util") && item.getKind().equals(CompletionItemKind.Module);
+		}).collect(Collectors.toList());
+		Assertions.assertEquals(1, filteredItems.size());
+	}
+
+	@Test
+	void testImportClass() throws Exception {
+		Path filePath = srcRoot.resolve("Completion.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("import java.util.ArrayLi\n");
+		contents.append("class Completion {\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(0, 24);
+		Either<List<CompletionItem>, CompletionList> result = services
+				.completion(new CompletionParams(textDocument, position)).get();
+		Assertions.assertTrue(result.isLeft());
+		List<CompletionItem> items = result.getLeft();
+		Assertions.assertTrue(items.size() > 0);
+		List<CompletionItem> filteredItems = items.stream().filter(item -> {
+			return item.getLabel().equals("java.util.ArrayList") && item.getKind().equals(CompletionItemKind.Class);
+		}).collect(Collectors.toList());
+		Assertions.assertEquals(1, filteredItems.size());
+		Assertions.assertTrue(items.stream().allMatch(item -> item.getLabel().startsWith("java.util.ArrayLi")));
+	}
+
+	@Test
+	void testPackageQualifiedClass() throws Exception {
+		Path filePath = srcRoot.resolve("Completion.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class Completion {\n");
+		contents.append("  public Completion() {\n");
+		contents.append("    java.util.ArrayLi\n");
+		contents.append("  }\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(2, 21);
+		Either<List<CompletionItem>, CompletionList> result = services
+				.completion(new CompletionParams(textDocument, position)).get();
+		Assertions.assertTrue(result.isLeft());
+		List<CompletionItem> items = result.getLeft();
+		List<CompletionItem> filteredItems = items.stream().filter(item -> {
+			return item.getLabel().equals("ArrayList") && item.getDetail().equals("java.util")
+					&& item.getKind().equals(CompletionItemKind.Class);
+		}).collect(Collectors.toList());
+		Assertions.assertEquals(1, filteredItems.size());
+	}
 }
\ No newline at end of file
@@ -19,13 +19,16 @@
 ////////////////////////////////////////////////////////////////////////////////
 package net.prominic.groovyls;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.lsp4j.DefinitionParams;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.MessageActionItem;
@@ -33,8 +36,10 @@ import org.eclipse.lsp4j.MessageParams;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
 import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -60,7 +65,18 @@ class GroovyServicesDefinitionTests {
 			srcRoot.toFile().mkdirs();
 		}
 
-		services = new GroovyServices(new CompilationUnitFactory());
+		services = createServices();
+	}
+
+	@AfterEach
+	void tearDown() {
+		services = null;
+		workspaceRoot = null;
+		srcRoot = null;
+	}
+
+	private GroovyServices createServices() {
+		GroovyServices services = new GroovyServices(new CompilationUnitFactory());
 		services.setWorkspaceRoot(workspaceRoot);
 		services.connect(new LanguageClient() {
 
@@ -89,13 +105,7 @@ class GroovyServicesDefinitionTests {
 
 			}
 		});
-	}
-
-	@AfterEach
-	void tearDown() {
-		services = null;
-		workspaceRoot = null;
-		srcRoot = null;
+		return services;
 	}
 
 	// --- local variables
@@ -513,6 +523,89 @@ class GroovyServicesDefinitionTests {
 		Assertions.assertEquals(36, location.getRange().getEnd().getCharacter());
 	}
 
+	@Test
+	void testMemberDefinitionAfterTransitiveDependencyChange() throws Exception {
+		Path bFilePath = srcRoot.resolve("DefinitionsB.groovy");
+		String bURI = bFilePath.toUri().toString();
+		String bContents = "class DefinitionsB {\n}";
+		services.didOpen(new DidOpenTextDocumentParams(new TextDocumentItem(bURI, LANGUAGE_GROOVY, 1, bContents)));
+
+		Path aFilePath = srcRoot.resolve("DefinitionsA.groovy");
+		String aURI = aFilePath.toUri().toString();
+		String aContents = "class DefinitionsA {\n  DefinitionsB getB() { return null }\n}";
+		services.didOpen(new DidOpenTextDocumentParams(new TextDocumentItem(aURI, LANGUAGE_GROOVY, 1, aContents)));
+
+		Path filePath = srcRoot.resolve("Definitions.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class Definitions {\n");
+		contents.append("  public Definitions() {\n");
+		contents.append("    new DefinitionsA().getB().memberVar\n");
+		contents.append("  }\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(2, 32);
+		List<? extends Location> locations = services.definition(new DefinitionParams(textDocument, position)).get()
+				.getLeft();
+		Assertions.assertEquals(0, locations.size());
+
+		String changedBContents = "class DefinitionsB {\n  String memberVar\n}";
+		TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent(changedBContents);
+		services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(bURI, 2),
+				Collections.singletonList(changeEvent)));
+
+		locations = services.definition(new DefinitionParams(textDocument, position)).get().getLeft();
+		Assertions.assertEquals(1, locations.size());
+		Location location = locations.get(0);
+		Assertions.assertEquals(bURI, location.getUri());
+		Assertions.assertEquals(1, location.getRange().getStart().getLine());
+	}
+
+	@Test
+	void testMemberDefinitionInUnopenedFileAfterDependencyChange() throws Exception {
+		// the URI of a file that isn't open comes from walking the workspace,
+		// which doesn't include the . in the source path
+		Path filePath = workspaceRoot.resolve(Paths.get(PATH_SRC).normalize()).resolve("DefinitionsOnDisk.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class DefinitionsOnDisk {\n");
+		contents.append("  public DefinitionsOnDisk() {\n");
+		contents.append("    new DefinitionsA().memberVar\n");
+		contents.append("  }\n");
+		contents.append("}");
+		Files.write(filePath, contents.toString().getBytes(StandardCharsets.UTF_8));
+		try {
+			// the workspace files are found when the services are created
+			services = createServices();
+
+			Path aFilePath = srcRoot.resolve("DefinitionsA.groovy");
+			String aURI = aFilePath.toUri().toString();
+			String aContents = "class DefinitionsA {\n}";
+			services.didOpen(
+					new DidOpenTextDocumentParams(new TextDocumentItem(aURI, LANGUAGE_GROOVY, 1, aContents)));
+			TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+			Position position = new Position(2, 24);
+			List<? extends Location> locations = services.definition(new DefinitionParams(textDocument, position))
+					.get().getLeft();
+			Assertions.assertEquals(0, locations.size());
+
+			String changedAContents = "class DefinitionsA {\n  String memberVar\n}";
+			TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent(changedAContents);
+			services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(aURI, 2),
+					Collections.singletonList(changeEvent)));
+
+			locations = services.definition(new DefinitionParams(textDocument, position)).get().getLeft();
+			Assertions.assertEquals(1, locations.size());
+			Location location = locations.get(0);
+			Assertions.assertEquals(aURI, location.getUri());
+			Assertions.assertEquals(1, location.getRange().getStart().getLine());
+		} finally {
+			Files.delete(filePath);
+		}
+	}
+
 	@Test
 	void testDefinitionFromArrayItemMemberAccess() throws Exception {
 		Path filePath = srcRoot.resolve("Definitions.groovy");
@@ -0,0 +1,259 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.DidOpenTextDocumentParams;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.MessageActionItem;
+import org.eclipse.lsp4j.MessageParams;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.ReferenceContext;
+import org.eclipse.lsp4j.ReferenceParams;
+import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.TextDocumentIdentifier;
+import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
+import org.eclipse.lsp4j.services.LanguageClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.prominic.groovyls.config.CompilationUnitFactory;
+
+class GroovyServicesReferencesTests {
+	private static final String LANGUAGE_GROOVY = "groovy";
+	private static final String PATH_WORKSPACE = "./build/test_workspace/";
+	private static final String PATH_SRC = "./src/main/groovy";
+
+	private GroovyServices services;
+	private Path workspaceRoot;
+	private Path srcRoot;
+
+	@BeforeEach
+	void setup() {
+		workspaceRoot = Paths.get(System.getProperty("user.dir")).resolve(PATH_WORKSPACE);
+		srcRoot = workspaceRoot.resolve(PATH_SRC);
+		if (!Files.exists(srcRoot)) {
+			srcRoot.toFile().mkdirs();
+		}
+
+		services = new GroovyServices(new CompilationUnitFactory());
+		services.setWorkspaceRoot(workspaceRoot);
+		services.connect(new LanguageClient() {
+
+			@Override
+			public void telemetryEvent(Object object) {
+
+			}
+
+			@Override
+			public CompletableFuture<MessageActionItem> showMessageRequest(ShowMessageRequestParams requestParams) {
+				return null;
+			}
+
+			@Override
+			public void showMessage(MessageParams messageParams) {
+
+			}
+
+			@Override
+			public void publishDiagnostics(PublishDiagnosticsParams diagnostics) {
+
+			}
+
+			@Override
+			public void logMessage(MessageParams message) {
+
+			}
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		services = null;
+		workspaceRoot = null;
+		srcRoot = null;
+	}
+
+	// --- local variables
+
+	@Test
+	void testLocalVariableReferences() throws Exception {
+		Path filePath = srcRoot.resolve("References.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class References {\n");
+		contents.append("  public References() {\n");
+		contents.append("    int localVar\n");
+		contents.append("    localVar = 123\n");
+		contents.append("    println(localVar)\n");
+		contents.append("  }\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(3, 6);
+		List<? extends Location> locations = services
+				.references(new ReferenceParams(textDocument, position, new ReferenceContext(true))).get();
+		Assertions.assertEquals(3, locations.size());
+		Assertions.assertEquals(2, locations.get(0).getRange().getStart().getLine());
+		Assertions.assertEquals(3, locations.get(1).getRange().getStart().getLine());
+		Assertions.assertEquals(4, locations.get(2).getRange().getStart().getLine());
+	}
+
+	@Test
+	void testLocalVariableReferencesAfterChangeInMethodBody() throws Exception {
+		Path filePath = srcRoot.resolve("References.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class References {\n");
+		contents.append("  void method() {\n");
+		contents.append("    int localVar\n");
+		contents.append("    localVar = 123\n");
+		contents.append("  }\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(3, 6);
+		List<? extends Location> locations = services
+				.references(new ReferenceParams(textDocument, position, new ReferenceContext(true))).get();
+		Assertions.assertEquals(2, locations.size());
+
+		String changedContents = contents.toString().replace("localVar = 123", "localVar = 123; println(localVar)");
+		TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent(changedContents);
+		services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(uri, 2),
+				Collections.singletonList(changeEvent)));
+
+		locations = services.references(new ReferenceParams(textDocument, position, new ReferenceContext(true)))
+				.get();
+		Assertions.assertEquals(3, locations.size());
+		Assertions.assertEquals(3, locations.get(2).getRange().getStart().getLine());
+		Assertions.assertEquals(28, locations.get(2).getRange().getStart().getCharacter());
+	}
+
+	// --- methods
+
+	@Test
+	void testMethodReferences() throws Exception {
+		Path filePath = srcRoot.resolve("References.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class References {\n");
+		contents.append("  public References() {\n");
+		contents.append("    this.method()\n");
+		contents.append("    this.method()\n");
+		contents.append("  }\n");
+		contents.append("  public void method() {}\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(uri);
+		Position position = new Position(5, 16);
+		List<? extends Location> locations = services
+				.references(new ReferenceParams(textDocument, position, new ReferenceContext(true))).get();
+		Assertions.assertEquals(3, locations.size());
+	}
+
+	// --- classes
+
+	@Test
+	void testClassReferencesInOtherFile() throws Exception {
+		Path definitionFilePath = srcRoot.resolve("ReferencesDefinition.groovy");
+		String definitionURI = definitionFilePath.toUri().toString();
+		TextDocumentItem definitionDocumentItem = new TextDocumentItem(definitionURI, LANGUAGE_GROOVY, 1,
+				"class ReferencesDefinition {}");
+		services.didOpen(new DidOpenTextDocumentParams(definitionDocumentItem));
+
+		Path filePath = srcRoot.resolve("References.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class References {\n");
+		contents.append("  public References() {\n");
+		contents.append("    ReferencesDefinition localVar\n");
+		contents.append("  }\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(definitionURI);
+		Position position = new Position(0, 8);
+		List<? extends Location> locations = services
+				.references(new ReferenceParams(textDocument, position, new ReferenceContext(true))).get();
+		Assertions.assertTrue(locations.stream().anyMatch(location -> {
+			return location.getUri().equals(uri) && location.getRange().getStart().getLine() == 2;
+		}));
+	}
+
+	@Test
+	void testClassReferencesAfterChangeInOtherFile() throws Exception {
+		Path definitionFilePath = srcRoot.resolve("ReferencesDefinition.groovy");
+		String definitionURI = definitionFilePath.toUri().toString();
+		TextDocumentItem definitionDocumentItem = new TextDocumentItem(definitionURI, LANGUAGE_GROOVY, 1,
+				"class ReferencesDefinition {}");
+		services.didOpen(new DidOpenTextDocumentParams(definitionDocumentItem));
+
+		Path filePath = srcRoot.resolve("References.groovy");
+		String uri = filePath.toUri().toString();
+		StringBuilder contents = new StringBuilder();
+		contents.append("class References {\n");
+		contents.append("  public References() {\n");
+		contents.append("    ReferencesDefinition localVar\n");
+		contents.append("  }\n");
+		contents.append("}");
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LANGUAGE_GROOVY, 1, contents.toString());
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+
+		TextDocumentIdentifier textDocument = new TextDocumentIdentifier(definitionURI);
+		Position position = new Position(0, 8);
+		List<? extends Location> locations = services
+				.references(new ReferenceParams(textDocument, position, new ReferenceContext(true))).get();
+		long count = locations.stream().filter(location -> location.getUri().equals(uri)).count();
+
+		StringBuilder changedContents = new StringBuilder();
+		changedContents.append("class References {\n");
+		changedContents.append("  public References() {\n");
+		changedContents.append("    ReferencesDefinition localVar\n");
+		changedContents.append("    ReferencesDefinition otherLocalVar\n");
+		changedContents.append("  }\n");
+		changedContents.append("}");
+		TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent(changedContents.toString());
+		services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(uri, 2),
+				Collections.singletonList(changeEvent)));
+
+		locations = services.references(new ReferenceParams(textDocument, position, new ReferenceContext(true)))
+				.get();
+		Assertions.assertTrue(locations.stream().filter(location -> location.getUri().equals(uri)).count() > count);
+		Assertions.assertTrue(locations.stream().anyMatch(location -> {
+			return location.getUri().equals(uri) && location.getRange().getStart().getLine() == 3;
+		}));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.ast;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ConstructorNode;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.prominic.groovyls.compiler.control.GroovyLSCompilationUnit;
+import net.prominic.groovyls.compiler.control.io.StringReaderSourceWithURI;
+import net.prominic.groovyls.util.GroovyLanguageServerUtils;
+import net.prominic.lsp.utils.Positions;
+import net.prominic.lsp.utils.Ranges;
+
+class ASTNodePositionIndexTests {
+	private static final URI TEST_URI = Paths.get("/workspace/Positions.groovy").toUri();
+	private static final String[] LINES = {
+			"import groovy.transform.TupleConstructor",
+			"@TupleConstructor",
+			"class Positions {",
+			"  String name",
+			"  int count = 1",
+			"  def run(List<String> items) {",
+			"    items.each { item ->",
+			"      item.collect { c -> c.toUpperCase() }.each { println(it) }",
+			"    }",
+			"    def add = { a -> { b -> a + b } }",
+			"    return add(1)(2) + count",
+			"  }",
+			"  static class Inner { Inner() {} }",
+			"}",
+			"println(new Positions('a').run(['b', 'c']))" };
+
+	private ASTNodeVisitor astVisitor;
+
+	@BeforeEach
+	void setup() {
+		CompilerConfiguration config = new CompilerConfiguration();
+		GroovyLSCompilationUnit compilationUnit = new GroovyLSCompilationUnit(config);
+		String contents = String.join("\n", LINES);
+		compilationUnit.addSource(new SourceUnit(Paths.get(TEST_URI).toString(),
+				new StringReaderSourceWithURI(contents, TEST_URI, config), config, compilationUnit.getClassLoader(),
+				compilationUnit.getErrorCollector()));
+		compilationUnit.compile(Phases.CANONICALIZATION);
+		// some AST transformations give a constructor the same range as its
+		// class
+		ClassNode innerClassNode = compilationUnit.getAST().getClass("Positions$Inner");
+		innerClassNode.getDeclaredConstructors().get(0).setSourcePosition(innerClassNode);
+		astVisitor = new ASTNodeVisitor();
+		astVisitor.visitCompilationUnit(compilationUnit);
+	}
+
+	@AfterEach
+	void tearDown() {
+		astVisitor = null;
+	}
+
+	@Test
+	void testSourceHasNestedClosuresAndSameRangeNodes() {
+		List<ASTNode> nodes = astVisitor.getNodes(TEST_URI);
+		long closureCount = nodes.stream().filter(node -> node instanceof ClosureExpression).count();
+		Assertions.assertTrue(closureCount >= 4);
+		int sameRangeCount = 0;
+		for (ASTNode node : nodes) {
+			ASTNode parent = astVisitor.getParent(node);
+			if (parent != null && node.getLineNumber() != -1 && ASTNodePositionIndex.hasSameRange(parent, node)) {
+				sameRangeCount++;
+			}
+		}
+		Assertions.assertTrue(sameRangeCount > 0);
+	}
+
+	@Test
+	void testClassIsPreferredOverConstructorWithSameRange() {
+		ASTNode node = astVisitor.getNodeAtLineAndColumn(TEST_URI, 12, 4);
+		Assertions.assertTrue(node instanceof ClassNode);
+		Assertions.assertEquals("Positions$Inner", ((ClassNode) node).getName());
+	}
+
+	@Test
+	void testLookupMatchesBruteForce() {
+		for (int line = 0; line <= LINES.length; line++) {
+			int length = line < LINES.length ? LINES[line].length() : 0;
+			for (int column = 0; column <= length + 1; column++) {
+				ASTNode expected = findNodeBruteForce(line, column);
+				ASTNode actual = astVisitor.getNodeAtLineAndColumn(TEST_URI, line, column);
+				Assertions.assertSame(expected, actual, "line " + line + ", column " + column);
+			}
+		}
+	}
+
+	/**
+	 * Checks every node, and prefers the latest start, then the earliest
+	 * end. For the same range, a descendant is preferred over its ancestor,
+	 * except that a class is preferred over its constructor. Otherwise, the
+	 * node that was visited first is preferred.
+	 */
+	private ASTNode findNodeBruteForce(int line, int column) {
+		Position position = new Position(line, column);
+		ASTNode result = null;
+		Range resultRange = null;
+		for (ASTNode node : astVisitor.getNodes(TEST_URI)) {
+			if (node.getLineNumber() == -1) {
+				continue;
+			}
+			Range range = GroovyLanguageServerUtils.astNodeToRange(node);
+			if (range == null || !Ranges.contains(range, position)) {
+				continue;
+			}
+			if (result == null || isPreferred(node, range, result, resultRange)) {
+				result = node;
+				resultRange = range;
+			}
+		}
+		return result;
+	}
+
+	private boolean isPreferred(ASTNode node, Range range, ASTNode other, Range otherRange) {
+		int compare = Positions.COMPARATOR.compare(range.getStart(), otherRange.getStart());
+		if (compare != 0) {
+			return compare > 0;
+		}
+		compare = Positions.COMPARATOR.compare(range.getEnd(), otherRange.getEnd());
+		if (compare != 0) {
+			return compare < 0;
+		}
+		if (astVisitor.contains(other, node)) {
+			return !(other instanceof ClassNode && node instanceof ConstructorNode);
+		}
+		if (astVisitor.contains(node, other)) {
+			return node instanceof ClassNode && other instanceof ConstructorNode;
+		}
+		return false;
+	}
+}
\ No newline at end of file
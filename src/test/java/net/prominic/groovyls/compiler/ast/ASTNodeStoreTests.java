@@ -0,0 +1,209 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.ast;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ASTNodeStoreTests {
+	private static final URI URI_ONE = URI.create("file:///One.groovy");
+	private static final URI URI_TWO = URI.create("file:///Two.groovy");
+	// the length of a new store's table, before it needs to resize
+	private static final int TABLE_LENGTH = 2048;
+
+	private ASTNodeStore store;
+
+	@BeforeEach
+	void setup() {
+		store = new ASTNodeStore();
+	}
+
+	@AfterEach
+	void tearDown() {
+		store = null;
+	}
+
+	@Test
+	void testDeleteWrapsAroundEndOfTable() {
+		// nodes that hash to the last few slots of the table, so that some of
+		// them are stored at the start of the table instead
+		List<ASTNode> nodes = new ArrayList<>();
+		int i = 0;
+		while (nodes.size() < 16) {
+			ASTNode node = new ConstantExpression(i);
+			i++;
+			int slot = ASTNodeStore.hash(node) & (TABLE_LENGTH - 1);
+			if (slot >= TABLE_LENGTH - 4 || (slot < 2 && nodes.size() % 4 == 0)) {
+				nodes.add(node);
+			}
+		}
+		List<Integer> ids = new ArrayList<>();
+		for (ASTNode node : nodes) {
+			ids.add(store.add(node, -1, URI_ONE, false));
+		}
+		Set<ASTNode> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+		// remove from the middle of the cluster first, then the rest
+		for (int j = 1; j < nodes.size(); j += 2) {
+			store.remove(nodes.get(j));
+			removed.add(nodes.get(j));
+			assertIds(nodes, ids, removed);
+		}
+		for (int j = 0; j < nodes.size(); j += 2) {
+			store.remove(nodes.get(j));
+			removed.add(nodes.get(j));
+			assertIds(nodes, ids, removed);
+		}
+	}
+
+	@Test
+	void testAddAgainWithDifferentURI() {
+		ASTNode parent = new ConstantExpression("parent");
+		ASTNode otherParent = new ConstantExpression("otherParent");
+		ASTNode node = new ConstantExpression("node");
+		int parentId = store.add(parent, -1, URI_ONE, false);
+		int otherParentId = store.add(otherParent, -1, URI_TWO, false);
+		int id = store.add(node, parentId, URI_ONE, false);
+		Assertions.assertEquals(id, store.add(node, otherParentId, URI_TWO, false));
+		Assertions.assertEquals(URI_TWO, store.getURI(node));
+		Assertions.assertSame(otherParent, store.getParent(node));
+
+		store.removeURI(URI_ONE);
+		Assertions.assertEquals(-1, store.getId(parent));
+		Assertions.assertEquals(id, store.getId(node));
+		Assertions.assertEquals(URI_TWO, store.getURI(node));
+
+		store.removeURI(URI_TWO);
+		Assertions.assertEquals(-1, store.getId(node));
+		Assertions.assertEquals(-1, store.getId(otherParent));
+	}
+
+	@Test
+	void testIdsReusedAfterRemoveURI() {
+		List<ASTNode> oldNodes = new ArrayList<>();
+		List<Integer> oldIds = new ArrayList<>();
+		int parentId = -1;
+		for (int i = 0; i < 10; i++) {
+			ASTNode node = new ConstantExpression(i);
+			parentId = store.add(node, parentId, URI_ONE, false);
+			oldNodes.add(node);
+			oldIds.add(parentId);
+		}
+		store.removeURI(URI_ONE);
+
+		List<ASTNode> newNodes = new ArrayList<>();
+		parentId = -1;
+		for (int i = 0; i < 10; i++) {
+			ASTNode node = new ConstantExpression(i);
+			int id = store.add(node, parentId, URI_TWO, false);
+			Assertions.assertTrue(oldIds.contains(id));
+			parentId = id;
+			newNodes.add(node);
+		}
+		for (ASTNode node : oldNodes) {
+			Assertions.assertEquals(-1, store.getId(node));
+			Assertions.assertNull(store.getURI(node));
+		}
+		for (int i = 0; i < newNodes.size(); i++) {
+			ASTNode node = newNodes.get(i);
+			Assertions.assertEquals(URI_TWO, store.getURI(node));
+			Assertions.assertSame(i == 0 ? null : newNodes.get(i - 1), store.getParent(node));
+		}
+
+		// the stale ids of the first URI must not remove the reused ids
+		store.removeURI(URI_ONE);
+		for (ASTNode node : newNodes) {
+			Assertions.assertEquals(URI_TWO, store.getURI(node));
+		}
+	}
+
+	@Test
+	void testAddAll() {
+		ASTNode root = new ConstantExpression("root");
+		ASTNode shared = new ConstantExpression("shared");
+		int rootId = store.add(root, -1, URI_ONE, false);
+		int sharedId = store.add(shared, rootId, URI_ONE, false);
+
+		ASTNodeStore other = new ASTNodeStore();
+		ASTNode removed = new ConstantExpression("removed");
+		ASTNode hidden = new ConstantExpression("hidden");
+		ASTNode child = new ConstantExpression("child");
+		other.add(removed, -1, URI_TWO, false);
+		int hiddenId = other.add(hidden, -1, URI_TWO, true);
+		other.remove(removed);
+		// reuses the removed id, so the child's id is less than its parent's
+		int otherSharedId = other.add(shared, hiddenId, URI_TWO, false);
+		Assertions.assertTrue(otherSharedId < hiddenId);
+		other.add(child, otherSharedId, URI_TWO, false);
+
+		store.addAll(other);
+		Assertions.assertEquals(sharedId, store.getId(shared));
+		Assertions.assertEquals(-1, store.getId(removed));
+		Assertions.assertNull(store.getParent(root));
+		Assertions.assertEquals(URI_ONE, store.getURI(root));
+		Assertions.assertSame(hidden, store.getParent(shared));
+		Assertions.assertEquals(URI_TWO, store.getURI(shared));
+		Assertions.assertSame(shared, store.getParent(child));
+		Assertions.assertEquals(URI_TWO, store.getURI(child));
+		Assertions.assertNotEquals(-1, store.getId(hidden));
+		Assertions.assertNull(store.getURI(hidden));
+
+		store.removeURI(URI_ONE);
+		Assertions.assertEquals(-1, store.getId(root));
+		Assertions.assertEquals(sharedId, store.getId(shared));
+		store.removeURI(URI_TWO);
+		Assertions.assertEquals(-1, store.getId(shared));
+		Assertions.assertEquals(-1, store.getId(child));
+		Assertions.assertEquals(-1, store.getId(hidden));
+	}
+
+	@Test
+	void testRemovedNodesArePrunedFromURI() {
+		ASTNode parent = new ConstantExpression("parent");
+		int parentId = store.add(parent, -1, URI_ONE, false);
+		for (int i = 0; i < 1000; i++) {
+			ASTNode node = new ConstantExpression(i);
+			store.add(node, parentId, URI_ONE, false);
+			store.add(node, parentId, URI_ONE, false);
+			store.remove(node);
+		}
+		Assertions.assertTrue(store.getIdCount(URI_ONE) <= 64);
+		store.removeURI(URI_ONE);
+		Assertions.assertEquals(-1, store.getId(parent));
+	}
+
+	private void assertIds(List<ASTNode> nodes, List<Integer> ids, Set<ASTNode> removed) {
+		for (int i = 0; i < nodes.size(); i++) {
+			ASTNode node = nodes.get(i);
+			int expected = removed.contains(node) ? -1 : ids.get(i);
+			Assertions.assertEquals(expected, store.getId(node));
+		}
+	}
+}
\ No newline at end of file
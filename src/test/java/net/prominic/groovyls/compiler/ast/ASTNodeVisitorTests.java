@@ -0,0 +1,246 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.ast;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.prominic.groovyls.compiler.control.GroovyLSCompilationUnit;
+import net.prominic.groovyls.compiler.control.io.StringReaderSourceWithURI;
+
+class ASTNodeVisitorTests {
+	private static final int SOURCE_COUNT = 40;
+	private static final String SCRATCH_CONTENTS = "class Visited0 {\n  Visited1 scratchField\n  void scratch() {\n"
+			+ "    scratchField.a\n    [1, 2].each { it -> { scratchField.name1 } }\n  }\n}";
+
+	private GroovyLSCompilationUnit compilationUnit;
+	private List<URI> uris;
+
+	@BeforeEach
+	void setup() {
+		CompilerConfiguration config = new CompilerConfiguration();
+		compilationUnit = new GroovyLSCompilationUnit(config);
+		uris = new ArrayList<>();
+		for (int i = 0; i < SOURCE_COUNT; i++) {
+			URI uri = Paths.get("/workspace/Visited" + i + ".groovy").toUri();
+			String contents = "class Visited" + i + " {\n  String name" + i + "\n  int count(Visited"
+					+ ((i + 1) % SOURCE_COUNT) + " other) {\n    return other.name" + ((i + 1) % SOURCE_COUNT)
+					+ ".length()\n  }\n}";
+			compilationUnit.addSource(new SourceUnit(Paths.get(uri).toString(),
+					new StringReaderSourceWithURI(contents, uri, config), config, compilationUnit.getClassLoader(),
+					compilationUnit.getErrorCollector()));
+			uris.add(uri);
+		}
+		compilationUnit.compile(Phases.CANONICALIZATION);
+	}
+
+	@AfterEach
+	void tearDown() {
+		compilationUnit = null;
+		uris = null;
+	}
+
+	@Test
+	void testParallelVisitMatchesSequentialVisit() {
+		ASTNodeVisitor parallelVisitor = new ASTNodeVisitor();
+		parallelVisitor.visitCompilationUnit(compilationUnit);
+		ASTNodeVisitor sequentialVisitor = new ASTNodeVisitor();
+		sequentialVisitor.visitCompilationUnit(compilationUnit, uris);
+
+		Assertions.assertEquals(sequentialVisitor.getNodes().size(), parallelVisitor.getNodes().size());
+		Assertions.assertEquals(SOURCE_COUNT, parallelVisitor.getClassNodes().size());
+		for (URI uri : uris) {
+			List<ASTNode> nodes = sequentialVisitor.getNodes(uri);
+			Assertions.assertEquals(nodes, parallelVisitor.getNodes(uri));
+			for (ASTNode node : nodes) {
+				Assertions.assertSame(sequentialVisitor.getParent(node), parallelVisitor.getParent(node));
+				Assertions.assertEquals(uri, parallelVisitor.getURI(node));
+			}
+			Assertions.assertSame(sequentialVisitor.getNodeAtLineAndColumn(uri, 3, 12),
+					parallelVisitor.getNodeAtLineAndColumn(uri, 3, 12));
+		}
+		Assertions.assertNotNull(parallelVisitor.getClassNodeByName("Visited7"));
+		Assertions.assertEquals(SOURCE_COUNT, parallelVisitor.getWorkspaceSymbols("count", 100).size());
+		Assertions.assertEquals(1, parallelVisitor.getWorkspaceSymbols("name17", 100).size());
+	}
+
+	@Test
+	void testParallelVisitFindsSameDuplicateClass() {
+		CompilerConfiguration config = new CompilerConfiguration();
+		GroovyLSCompilationUnit duplicatesUnit = new GroovyLSCompilationUnit(config);
+		List<URI> duplicateURIs = new ArrayList<>();
+		for (int i = 0; i < SOURCE_COUNT; i++) {
+			URI uri = Paths.get("/workspace/Duplicate" + i + ".groovy").toUri();
+			String contents = "class Duplicate" + (i % 4) + " {\n  String name" + i + "\n}";
+			duplicatesUnit.addSource(new SourceUnit(Paths.get(uri).toString(),
+					new StringReaderSourceWithURI(contents, uri, config), config, duplicatesUnit.getClassLoader(),
+					duplicatesUnit.getErrorCollector()));
+			duplicateURIs.add(uri);
+		}
+		try {
+			duplicatesUnit.compile(Phases.CANONICALIZATION);
+		} catch (CompilationFailedException e) {
+			// the duplicate classes are reported as errors
+		}
+		ASTNodeVisitor parallelVisitor = new ASTNodeVisitor();
+		parallelVisitor.visitCompilationUnit(duplicatesUnit);
+		ASTNodeVisitor sequentialVisitor = new ASTNodeVisitor();
+		sequentialVisitor.visitCompilationUnit(duplicatesUnit, duplicateURIs);
+
+		for (int i = 0; i < 4; i++) {
+			ClassNode classNode = parallelVisitor.getClassNodeByName("Duplicate" + i);
+			Assertions.assertSame(sequentialVisitor.getClassNodeByName("Duplicate" + i), classNode);
+			Assertions.assertEquals(duplicateURIs.get(i), parallelVisitor.getURI(classNode));
+		}
+	}
+
+	@Test
+	void testReferencesAfterParallelVisit() {
+		ASTNodeVisitor parallelVisitor = new ASTNodeVisitor();
+		parallelVisitor.visitCompilationUnit(compilationUnit);
+		ASTNodeVisitor sequentialVisitor = new ASTNodeVisitor();
+		sequentialVisitor.visitCompilationUnit(compilationUnit, uris);
+		ASTNode classNode = parallelVisitor.getClassNodeByName("Visited3");
+		List<ASTNode> references = parallelVisitor.getReferences(classNode);
+		Assertions.assertFalse(references.isEmpty());
+		Assertions.assertEquals(sequentialVisitor.getReferences(classNode).size(), references.size());
+	}
+
+	@Test
+	void testScratchCompilationUnit() {
+		URI uri = uris.get(0);
+		ClassNode oldClassNode = compilationUnit.getAST().getClass("Visited0");
+		ClassNode otherClassNode = compilationUnit.getAST().getClass("Visited1");
+		GroovyLSCompilationUnit scratchUnit = compilationUnit.createScratchCompilationUnit(uri, SCRATCH_CONTENTS);
+		scratchUnit.compile(Phases.CANONICALIZATION);
+
+		Assertions.assertEquals(1, scratchUnit.getAST().getModules().size());
+		ClassNode scratchClassNode = scratchUnit.getAST().getClass("Visited0");
+		Assertions.assertNotSame(oldClassNode, scratchClassNode);
+		Assertions.assertEquals(1, scratchClassNode.getMethods("scratch").size());
+		// the other source classes are shared instead of compiled again
+		Assertions.assertSame(otherClassNode, scratchUnit.getAST().getClass("Visited1"));
+		Assertions.assertSame(otherClassNode, scratchClassNode.getField("scratchField").getType().redirect());
+
+		Assertions.assertEquals(SOURCE_COUNT, compilationUnit.getAST().getModules().size());
+		Assertions.assertSame(oldClassNode, compilationUnit.getAST().getClass("Visited0"));
+		Assertions.assertTrue(oldClassNode.getMethods("scratch").isEmpty());
+	}
+
+	@Test
+	void testOverlayVisitor() {
+		URI uri = uris.get(0);
+		URI otherURI = uris.get(1);
+		ASTNodeVisitor baseVisitor = new ASTNodeVisitor();
+		baseVisitor.visitCompilationUnit(compilationUnit);
+		List<ASTNode> baseNodes = new ArrayList<>(baseVisitor.getNodes(uri));
+		ASTNode baseNode = baseVisitor.getNodeAtLineAndColumn(uri, 3, 12);
+		ClassNode baseClassNode = baseVisitor.getClassNodeByName("Visited0");
+
+		GroovyLSCompilationUnit scratchUnit = compilationUnit.createScratchCompilationUnit(uri, SCRATCH_CONTENTS);
+		scratchUnit.compile(Phases.CANONICALIZATION);
+		ASTNodeVisitor overlayVisitor = new ASTNodeVisitor(baseVisitor);
+		overlayVisitor.visitCompilationUnit(scratchUnit);
+
+		Assertions.assertEquals(baseNodes, baseVisitor.getNodes(uri));
+		Assertions.assertSame(baseNode, baseVisitor.getNodeAtLineAndColumn(uri, 3, 12));
+		Assertions.assertSame(baseClassNode, baseVisitor.getClassNodeByName("Visited0"));
+		Assertions.assertEquals(SOURCE_COUNT, baseVisitor.getClassNodes().size());
+
+		// the overlay searches its own nodes without an index, so compare it
+		// to a visitor that has an index
+		ASTNodeVisitor scratchVisitor = new ASTNodeVisitor();
+		scratchVisitor.visitCompilationUnit(scratchUnit);
+		Assertions.assertEquals(scratchVisitor.getNodes(uri), overlayVisitor.getNodes(uri));
+		String[] lines = SCRATCH_CONTENTS.split("\n");
+		for (int line = 0; line < lines.length; line++) {
+			for (int column = 0; column <= lines[line].length(); column++) {
+				Assertions.assertSame(scratchVisitor.getNodeAtLineAndColumn(uri, line, column),
+						overlayVisitor.getNodeAtLineAndColumn(uri, line, column));
+			}
+		}
+		ClassNode scratchClassNode = overlayVisitor.getClassNodeByName("Visited0");
+		Assertions.assertNotSame(baseClassNode, scratchClassNode);
+		Assertions.assertEquals(uri, overlayVisitor.getURI(scratchClassNode));
+		Assertions.assertEquals(SOURCE_COUNT, overlayVisitor.getClassNodes().size());
+
+		// the other URIs fall back to the base visitor
+		Assertions.assertSame(baseVisitor.getNodes(otherURI), overlayVisitor.getNodes(otherURI));
+		Assertions.assertSame(baseVisitor.getNodeAtLineAndColumn(otherURI, 3, 12),
+				overlayVisitor.getNodeAtLineAndColumn(otherURI, 3, 12));
+		for (ASTNode node : baseVisitor.getNodes(otherURI)) {
+			Assertions.assertSame(baseVisitor.getParent(node), overlayVisitor.getParent(node));
+			Assertions.assertEquals(otherURI, overlayVisitor.getURI(node));
+		}
+		Assertions.assertSame(baseVisitor.getClassNodeByName("Visited1"),
+				overlayVisitor.getClassNodeByName("Visited1"));
+		Assertions.assertEquals(1, overlayVisitor.getWorkspaceSymbols("name17", 100).size());
+	}
+
+	@Test
+	void testOverlayReusesMemberTables() {
+		URI uri = uris.get(0);
+		ASTNodeVisitor baseVisitor = new ASTNodeVisitor();
+		baseVisitor.visitCompilationUnit(compilationUnit);
+		String contents = SCRATCH_CONTENTS + "\nclass ScratchChild extends Visited1 {\n  int childCount\n}";
+
+		// each completion request creates a new overlay
+		List<ASTNodeVisitor> overlayVisitors = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			GroovyLSCompilationUnit scratchUnit = compilationUnit.createScratchCompilationUnit(uri, contents);
+			scratchUnit.compile(Phases.CANONICALIZATION);
+			ASTNodeVisitor overlayVisitor = new ASTNodeVisitor(baseVisitor);
+			overlayVisitor.visitCompilationUnit(scratchUnit);
+			overlayVisitors.add(overlayVisitor);
+		}
+		ASTNodeVisitor firstOverlay = overlayVisitors.get(0);
+		ASTNodeVisitor secondOverlay = overlayVisitors.get(1);
+
+		MemberTable memberTable = firstOverlay.getMemberTable(firstOverlay.getClassNodeByName("Visited1"));
+		Assertions.assertSame(memberTable, secondOverlay.getMemberTable(secondOverlay.getClassNodeByName("Visited1")));
+		Assertions.assertSame(memberTable, baseVisitor.getMemberTable(baseVisitor.getClassNodeByName("Visited1")));
+
+		// hierarchies with classes from the scratch file aren't shared
+		MemberTable scratchMemberTable = firstOverlay.getMemberTable(firstOverlay.getClassNodeByName("Visited0"));
+		Assertions.assertEquals(1, scratchMemberTable.getMethods(false, "scratch").size());
+		Assertions.assertNotSame(scratchMemberTable,
+				secondOverlay.getMemberTable(secondOverlay.getClassNodeByName("Visited0")));
+		MemberTable baseMemberTable = baseVisitor.getMemberTable(baseVisitor.getClassNodeByName("Visited0"));
+		Assertions.assertTrue(baseMemberTable.getMethods(false, "scratch").isEmpty());
+
+		MemberTable childMemberTable = firstOverlay.getMemberTable(firstOverlay.getClassNodeByName("ScratchChild"));
+		Assertions.assertEquals(1, childMemberTable.getProperties(false, "childCount").size());
+		Assertions.assertEquals(1, childMemberTable.getProperties(false, "name1").size());
+		Assertions.assertNull(baseVisitor.getClassNodeByName("ScratchChild"));
+	}
+}
\ No newline at end of file
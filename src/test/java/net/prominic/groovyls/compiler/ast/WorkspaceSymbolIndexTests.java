@@ -0,0 +1,121 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.ast;
+
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WorkspaceSymbolIndexTests {
+	private static final URI URI_ONE = URI.create("file:///One.groovy");
+	private static final URI URI_TWO = URI.create("file:///Two.groovy");
+
+	private WorkspaceSymbolIndex index;
+	private ASTNodeVisitor astVisitor;
+
+	@BeforeEach
+	void setup() {
+		index = new WorkspaceSymbolIndex();
+		astVisitor = new ASTNodeVisitor();
+	}
+
+	@AfterEach
+	void tearDown() {
+		index = null;
+		astVisitor = null;
+	}
+
+	@Test
+	void testRanking() {
+		index.updateURI(URI_ONE, createClassNodes("Bitmapper", "HashMap", "MapUtil", "Map", "Other"), astVisitor);
+		Assertions.assertEquals(Arrays.asList("Map", "MapUtil", "HashMap", "Bitmapper"), search("map", 10));
+		Assertions.assertEquals(Arrays.asList("Map", "MapUtil", "HashMap", "Bitmapper"), search("Map", 10));
+	}
+
+	@Test
+	void testShortQueries() {
+		index.updateURI(URI_ONE, createClassNodes("Abc", "Xab", "Other"), astVisitor);
+		Assertions.assertEquals(Arrays.asList("Abc", "Xab"), search("ab", 10));
+		Assertions.assertEquals(Arrays.asList("Abc", "Xab"), search("b", 10));
+		Assertions.assertEquals(Arrays.asList("Abc", "Xab", "Other"), search("", 10));
+		Assertions.assertEquals(Collections.emptyList(), search("zz", 10));
+	}
+
+	@Test
+	void testMaxResults() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			names.add("Item" + i);
+		}
+		index.updateURI(URI_ONE, createClassNodes(names.toArray(new String[0])), astVisitor);
+		// shorter names rank first, and then names are sorted
+		Assertions.assertEquals(Arrays.asList("Item0", "Item1", "Item2", "Item3", "Item4"), search("item", 5));
+		Assertions.assertEquals(Arrays.asList("Item0", "Item1"), search("it", 2));
+		Assertions.assertEquals(20, search("item", 100).size());
+	}
+
+	@Test
+	void testRemoveURIAndCompact() {
+		List<String> oldNames = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			oldNames.add("Old" + i);
+		}
+		index.updateURI(URI_ONE, createClassNodes(oldNames.toArray(new String[0])), astVisitor);
+		index.updateURI(URI_TWO, createClassNodes("NewOne", "NewTwo"), astVisitor);
+		Assertions.assertEquals(1, search("Old1999", 10).size());
+
+		// enough symbols are removed to compact the index
+		index.removeURI(URI_ONE);
+		Assertions.assertEquals(Collections.emptyList(), search("old", 10));
+		Assertions.assertEquals(Collections.emptyList(), search("ol", 10));
+		Assertions.assertEquals(Arrays.asList("NewOne", "NewTwo"), search("new", 10));
+		Assertions.assertEquals(Arrays.asList("NewOne", "NewTwo"), search("ne", 10));
+
+		index.updateURI(URI_ONE, createClassNodes("Old5"), astVisitor);
+		Assertions.assertEquals(Arrays.asList("Old5"), search("old", 10));
+		index.updateURI(URI_TWO, createClassNodes("NewThree"), astVisitor);
+		Assertions.assertEquals(Arrays.asList("NewThree"), search("new", 10));
+	}
+
+	private List<String> search(String query, int maxResults) {
+		return index.search(query, maxResults).stream().map(WorkspaceSymbolIndex.Symbol::getName)
+				.collect(Collectors.toList());
+	}
+
+	private static List<ASTNode> createClassNodes(String... names) {
+		List<ASTNode> result = new ArrayList<>();
+		for (String name : names) {
+			result.add(new ClassNode(name, Modifier.PUBLIC, ClassHelper.OBJECT_TYPE));
+		}
+		return result;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.classpath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncClasspathScannerTests {
+	private CountDownLatch scanStarted;
+	private CountDownLatch scanAllowed;
+	private List<List<String>> scannedClasspaths;
+	private AsyncClasspathScanner scanner;
+
+	@BeforeEach
+	void setup() {
+		scanStarted = new CountDownLatch(1);
+		scanAllowed = new CountDownLatch(1);
+		scannedClasspaths = Collections.synchronizedList(new ArrayList<>());
+		scanner = new AsyncClasspathScanner(new ClasspathScanCache(null) {
+			@Override
+			public ClasspathIndex scan(List<String> classpathList) {
+				scanStarted.countDown();
+				try {
+					scanAllowed.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return null;
+				}
+				scannedClasspaths.add(classpathList);
+				List<String> packageNames = new ArrayList<>(classpathList);
+				return new ClasspathIndex(Collections.emptyList(), packageNames);
+			}
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		scanner.shutdown();
+		scanner = null;
+	}
+
+	@Test
+	void testIndexIsPublishedWhenScanFinishes() throws Exception {
+		scanner.scan(Collections.singletonList("one.jar"));
+		Assertions.assertTrue(scanStarted.await(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(scanner.isPending());
+		Assertions.assertNull(scanner.getIndex());
+
+		scanAllowed.countDown();
+		scanner.waitForScan();
+		Assertions.assertFalse(scanner.isPending());
+		Assertions.assertEquals(Collections.singletonList("one.jar"), scanner.getIndex().getPackageNames());
+	}
+
+	@Test
+	void testNewerScanReplacesOlderScan() throws Exception {
+		scanner.scan(Collections.singletonList("one.jar"));
+		Assertions.assertTrue(scanStarted.await(5, TimeUnit.SECONDS));
+		scanner.scan(Collections.singletonList("two.jar"));
+		scanner.scan(Collections.singletonList("three.jar"));
+
+		scanAllowed.countDown();
+		scanner.waitForScan();
+		Assertions.assertFalse(scanner.isPending());
+		Assertions.assertEquals(Collections.singletonList("three.jar"), scanner.getIndex().getPackageNames());
+		// the queued scan of two.jar is skipped, because it was already stale
+		Assertions.assertFalse(scannedClasspaths.contains(Collections.singletonList("two.jar")));
+	}
+
+	@Test
+	void testClearDiscardsRunningScan() throws Exception {
+		scanner.scan(Collections.singletonList("one.jar"));
+		Assertions.assertTrue(scanStarted.await(5, TimeUnit.SECONDS));
+		scanner.clear();
+		Assertions.assertFalse(scanner.isPending());
+
+		scanAllowed.countDown();
+		scanner.waitForScan();
+		// give the discarded scan a chance to finish
+		Thread.sleep(50);
+		Assertions.assertNull(scanner.getIndex());
+	}
+}
\ No newline at end of file
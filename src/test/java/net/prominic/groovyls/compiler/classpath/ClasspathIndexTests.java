@@ -0,0 +1,76 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.classpath;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex.ClassEntry;
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex.Kind;
+
+class ClasspathIndexTests {
+	private ClasspathIndex index;
+
+	@BeforeEach
+	void setup() {
+		index = new ClasspathIndex(Arrays.asList(createClassEntry("java.util.HashSet", Kind.CLASS),
+				createClassEntry("java.util.HashMap", Kind.CLASS), createClassEntry("java.util.Map", Kind.INTERFACE),
+				createClassEntry("java.util.concurrent.ConcurrentHashMap", Kind.CLASS),
+				createClassEntry("java.util.Hashtable", Kind.CLASS),
+				createClassEntry("java.util.LinkedHashMap", Kind.CLASS)), Arrays.asList("java.util"));
+	}
+
+	@Test
+	void testFindClassesByPrefix() {
+		Assertions.assertEquals(Arrays.asList("java.util.HashMap", "java.util.HashSet", "java.util.Hashtable"),
+				getNames(index.findClasses("Hash", 10)));
+		Assertions.assertEquals(Collections.emptyList(), getNames(index.findClasses("Tree", 10)));
+	}
+
+	@Test
+	void testFindClassesByCamelCase() {
+		Assertions.assertEquals(Arrays.asList("java.util.HashMap"), getNames(index.findClasses("HM", 10)));
+		Assertions.assertEquals(Arrays.asList("java.util.LinkedHashMap"), getNames(index.findClasses("LiHaM", 10)));
+		Assertions.assertEquals(Arrays.asList("java.util.concurrent.ConcurrentHashMap"),
+				getNames(index.findClasses("CM", 10)));
+		Assertions.assertEquals(Collections.emptyList(), getNames(index.findClasses("HSM", 10)));
+	}
+
+	@Test
+	void testFindClassesLimitsResults() {
+		Assertions.assertEquals(2, index.findClasses("Hash", 2).size());
+		Assertions.assertEquals(6, index.findClasses("", 10).size());
+	}
+
+	private static ClassEntry createClassEntry(String name, Kind kind) {
+		int dotIndex = name.lastIndexOf('.');
+		return new ClassEntry(name, name.substring(dotIndex + 1), name.substring(0, dotIndex), kind);
+	}
+
+	private static List<String> getNames(List<ClassEntry> classes) {
+		return classes.stream().map(ClassEntry::getName).collect(Collectors.toList());
+	}
+}
\ No newline at end of file
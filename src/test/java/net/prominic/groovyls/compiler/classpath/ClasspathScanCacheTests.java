@@ -0,0 +1,148 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.classpath;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClasspathScanCacheTests {
+	private static final String PATH_CACHE = "./build/test_classpath_cache/";
+
+	private Path cacheDirectory;
+	private ClasspathScanCache cache;
+
+	@BeforeEach
+	void setup() {
+		cacheDirectory = Paths.get(System.getProperty("user.dir")).resolve(PATH_CACHE);
+		if (Files.exists(cacheDirectory)) {
+			for (File file : cacheDirectory.toFile().listFiles()) {
+				file.delete();
+			}
+		}
+		cache = new ClasspathScanCache(cacheDirectory);
+	}
+
+	@AfterEach
+	void tearDown() {
+		cache = null;
+		cacheDirectory = null;
+	}
+
+	@Test
+	void testCachedIndexMatchesScan() throws Exception {
+		Path jarPath = createJar("library.jar", 1);
+		List<String> classpathList = Collections.singletonList(jarPath.toString());
+		ClasspathIndex scannedIndex = cache.scan(classpathList);
+		Assertions.assertNotNull(scannedIndex);
+		// one file for the jar, and one for the JDK, unless another test
+		// already scanned the JDK
+		Assertions.assertTrue(listCacheFiles().size() >= 1);
+
+		// a new cache reads the jar from the directory instead of scanning
+		List<File> scannedFiles = new ArrayList<>();
+		ClasspathScanCache newCache = new ClasspathScanCache(cacheDirectory) {
+			@Override
+			protected ClasspathIndex scanClasspathEntry(File file) {
+				scannedFiles.add(file);
+				return super.scanClasspathEntry(file);
+			}
+		};
+		ClasspathIndex cachedIndex = newCache.scan(classpathList);
+		Assertions.assertNotSame(scannedIndex, cachedIndex);
+		Assertions.assertEquals(scannedIndex.getPackageNames(), cachedIndex.getPackageNames());
+		Assertions.assertEquals(scannedIndex.getClasses().size(), cachedIndex.getClasses().size());
+		for (int i = 0; i < scannedIndex.getClasses().size(); i++) {
+			ClasspathIndex.ClassEntry scannedEntry = scannedIndex.getClasses().get(i);
+			ClasspathIndex.ClassEntry cachedEntry = cachedIndex.getClasses().get(i);
+			Assertions.assertEquals(scannedEntry.getName(), cachedEntry.getName());
+			Assertions.assertEquals(scannedEntry.getSimpleName(), cachedEntry.getSimpleName());
+			Assertions.assertEquals(scannedEntry.getPackageName(), cachedEntry.getPackageName());
+			Assertions.assertEquals(scannedEntry.getKind(), cachedEntry.getKind());
+		}
+	}
+
+	@Test
+	void testOnlyChangedJarsAreScannedAgain() throws Exception {
+		List<String> scannedNames = new ArrayList<>();
+		cache = new ClasspathScanCache(null) {
+			@Override
+			protected ClasspathIndex scanClasspathEntry(File file) {
+				scannedNames.add(file.getName());
+				return new ClasspathIndex(Collections.emptyList(), Collections.singletonList(file.getName()));
+			}
+		};
+		Path jarPath1 = createJar("one.jar", 1);
+		Path jarPath2 = createJar("two.jar", 1);
+		ClasspathIndex index = cache.scan(Arrays.asList(jarPath1.toString(), jarPath2.toString()));
+		Assertions.assertEquals(Arrays.asList("one.jar", "two.jar"), scannedNames);
+		Assertions.assertTrue(index.getPackageNames().containsAll(Arrays.asList("one.jar", "two.jar")));
+
+		scannedNames.clear();
+		cache.scan(Arrays.asList(jarPath1.toString(), jarPath2.toString()));
+		Assertions.assertEquals(Collections.emptyList(), scannedNames);
+
+		createJar("two.jar", 2);
+		index = cache.scan(Arrays.asList(jarPath1.toString(), jarPath2.toString()));
+		Assertions.assertEquals(Collections.singletonList("two.jar"), scannedNames);
+
+		scannedNames.clear();
+		index = cache.scan(Collections.singletonList(jarPath1.toString()));
+		Assertions.assertEquals(Collections.emptyList(), scannedNames);
+		Assertions.assertTrue(index.getPackageNames().contains("one.jar"));
+		Assertions.assertFalse(index.getPackageNames().contains("two.jar"));
+	}
+
+	@Test
+	void testFingerprintChangesWhenJarChanges() throws Exception {
+		Path jarPath = createJar("library.jar", 1);
+		String fingerprint = cache.getJarFingerprint(jarPath.toFile());
+		Assertions.assertEquals(fingerprint, cache.getJarFingerprint(jarPath.toFile()));
+
+		createJar("library.jar", 2);
+		Assertions.assertNotEquals(fingerprint, cache.getJarFingerprint(jarPath.toFile()));
+	}
+
+	private Path createJar(String name, int size) throws IOException {
+		Files.createDirectories(cacheDirectory);
+		Path jarPath = cacheDirectory.resolve(name);
+		Files.write(jarPath, new byte[size]);
+		return jarPath;
+	}
+
+	private List<Path> listCacheFiles() throws IOException {
+		try (Stream<Path> stream = Files.list(cacheDirectory)) {
+			return stream.filter(file -> file.toString().endsWith(".idx")).collect(Collectors.toList());
+		}
+	}
+}
\ No newline at end of file
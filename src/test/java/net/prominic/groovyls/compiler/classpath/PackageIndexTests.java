@@ -0,0 +1,72 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.classpath;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex.ClassEntry;
+import net.prominic.groovyls.compiler.classpath.ClasspathIndex.Kind;
+import net.prominic.groovyls.compiler.classpath.PackageIndex.PackageNode;
+
+class PackageIndexTests {
+	private PackageIndex index;
+
+	@BeforeEach
+	void setup() {
+		ClasspathIndex classpathIndex = new ClasspathIndex(Arrays.asList(
+				new ClassEntry("java.util.List", "List", "java.util", Kind.INTERFACE),
+				new ClassEntry("java.util.ArrayList", "ArrayList", "java.util", Kind.CLASS),
+				new ClassEntry("java.util.function.Function", "Function", "java.util.function", Kind.INTERFACE),
+				new ClassEntry("java.io.File", "File", "java.io", Kind.CLASS)),
+				Arrays.asList("java.util", "java.util.function", "java.io", "java.util.stream"));
+		index = classpathIndex.getPackageIndex();
+	}
+
+	@Test
+	void testFindPackage() {
+		Assertions.assertEquals("java.util", index.findPackage("java.util").getName());
+		Assertions.assertEquals(Arrays.asList("java.util.ArrayList", "java.util.List"),
+				getNames(index.findPackage("java.util").getClasses()));
+		Assertions.assertNotNull(index.findPackage("java.util.stream"));
+		Assertions.assertNull(index.findPackage("java.ut"));
+		Assertions.assertNull(index.findPackage("javax.swing"));
+	}
+
+	@Test
+	void testFindChildrenAndClasses() {
+		PackageNode javaNode = index.findPackage("java");
+		Assertions.assertEquals(Arrays.asList("java.io", "java.util"),
+				javaNode.findChildren("").stream().map(PackageNode::getName).collect(Collectors.toList()));
+		Assertions.assertEquals(Arrays.asList("java.util"),
+				javaNode.findChildren("ut").stream().map(PackageNode::getName).collect(Collectors.toList()));
+		Assertions.assertEquals(Arrays.asList("java.util.ArrayList"),
+				getNames(index.findPackage("java.util").findClasses("Arr")));
+	}
+
+	private static List<String> getNames(List<ClassEntry> classes) {
+		return classes.stream().map(ClassEntry::getName).collect(Collectors.toList());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompileSchedulerTests {
+	private CompileScheduler scheduler;
+	private List<Set<URI>> compiledURIs;
+
+	@BeforeEach
+	void setup() {
+		compiledURIs = new ArrayList<>();
+		scheduler = new CompileScheduler((uris, cancelChecker) -> {
+			compiledURIs.add(uris);
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		scheduler.shutdown();
+		scheduler = null;
+		compiledURIs = null;
+	}
+
+	@Test
+	void testRequestCompilesPendingChangesOnce() throws Exception {
+		URI uri1 = URI.create("file:///One.groovy");
+		URI uri2 = URI.create("file:///Two.groovy");
+		scheduler.schedule(uri1);
+		scheduler.schedule(uri2);
+		scheduler.schedule(uri1);
+		Assertions.assertTrue(scheduler.isPending(uri1));
+		int compileCount = scheduler.request(() -> CompletableFuture.completedFuture(compiledURIs.size())).get();
+		Assertions.assertEquals(1, compileCount);
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(uri1, uri2)), compiledURIs.get(0));
+		Assertions.assertFalse(scheduler.isPending(uri1));
+	}
+
+	@Test
+	void testRequestWithoutPendingChanges() throws Exception {
+		int compileCount = scheduler.request(() -> CompletableFuture.completedFuture(compiledURIs.size())).get();
+		Assertions.assertEquals(0, compileCount);
+	}
+
+	@Test
+	void testScheduledCompileRunsAfterDelay() throws Exception {
+		URI uri = URI.create("file:///One.groovy");
+		scheduler.schedule(uri);
+		long startTime = System.currentTimeMillis();
+		while (scheduler.isPending(uri) && System.currentTimeMillis() - startTime < 5000) {
+			Thread.sleep(10);
+		}
+		int compileCount = scheduler.request(() -> CompletableFuture.completedFuture(compiledURIs.size())).get();
+		Assertions.assertEquals(1, compileCount);
+	}
+
+	@Test
+	void testNewerChangeCancelsRunningCompile() throws Exception {
+		scheduler.shutdown();
+		CountDownLatch compileStarted = new CountDownLatch(1);
+		List<Set<URI>> completedURIs = new ArrayList<>();
+		scheduler = new CompileScheduler((uris, cancelChecker) -> {
+			compiledURIs.add(uris);
+			if (compiledURIs.size() == 1) {
+				compileStarted.countDown();
+				while (true) {
+					cancelChecker.checkCanceled();
+					Thread.yield();
+				}
+			}
+			completedURIs.add(uris);
+		});
+		URI uri1 = URI.create("file:///One.groovy");
+		URI uri2 = URI.create("file:///Two.groovy");
+		scheduler.schedule(uri1);
+		Assertions.assertTrue(compileStarted.await(5, TimeUnit.SECONDS));
+		scheduler.schedule(uri2);
+		int compileCount = scheduler.request(() -> CompletableFuture.completedFuture(compiledURIs.size())).get();
+		Assertions.assertEquals(2, compileCount);
+		Assertions.assertEquals(1, completedURIs.size());
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(uri1, uri2)), completedURIs.get(0));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.expr.DeclarationExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.ExpressionStatement;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.codehaus.groovy.control.messages.Message;
+import org.codehaus.groovy.control.messages.SyntaxErrorMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import groovy.transform.ToString;
+import net.prominic.groovyls.compiler.ast.ASTNodeVisitor;
+import net.prominic.groovyls.compiler.control.io.StringReaderSourceWithURI;
+
+class MethodBodySplicerTests {
+	private static final URI TEST_URI = Paths.get("/workspace/Splice.groovy").toUri();
+	private static final String CONTENTS = "import java.util.concurrent.TimeUnit\n" + "class Splice {\n"
+			+ "  void first(int param) {\n" + "    String text = 'a'\n" + "    Missing missing = null\n" + "  }\n"
+			+ "  void second() {\n" + "    Other other = null\n" + "  }\n" + "}";
+
+	private GroovyLSCompilationUnit compilationUnit;
+	private SourceUnit sourceUnit;
+	private MethodBodySplicer splicer;
+
+	@BeforeEach
+	void setup() {
+		compilationUnit = new GroovyLSCompilationUnit(new CompilerConfiguration());
+		sourceUnit = addSource(compilationUnit, TEST_URI, CONTENTS);
+		compilationUnit.compile(Phases.CANONICALIZATION);
+		splicer = new MethodBodySplicer(compilationUnit);
+	}
+
+	@AfterEach
+	void tearDown() {
+		compilationUnit = null;
+		sourceUnit = null;
+		splicer = null;
+	}
+
+	@Test
+	void testSpliceResolvesNewBody() {
+		MethodBodySplicer.Splice splice = splicer.splice(sourceUnit,
+				CONTENTS.replace("String text = 'a'", "TimeUnit unit = null; def p = param"));
+		Assertions.assertNotNull(splice);
+		Assertions.assertEquals("first", splice.getMethod().getName());
+		List<?> statements = ((BlockStatement) splice.getMethod().getCode()).getStatements();
+		DeclarationExpression unitDeclaration = getDeclaration(statements.get(0));
+		ClassNode unitType = unitDeclaration.getVariableExpression().getOriginType();
+		Assertions.assertTrue(unitType.isResolved());
+		Assertions.assertEquals("java.util.concurrent.TimeUnit", unitType.getName());
+		Assertions.assertEquals(4, unitDeclaration.getLineNumber());
+		Assertions.assertEquals(5, unitDeclaration.getColumnNumber());
+		DeclarationExpression paramDeclaration = getDeclaration(statements.get(1));
+		VariableExpression paramExpression = (VariableExpression) paramDeclaration.getRightExpression();
+		Assertions.assertTrue(paramExpression.getAccessedVariable() instanceof Parameter);
+	}
+
+	@Test
+	void testSpliceReplacesErrorsInBody() {
+		Assertions.assertEquals(2, compilationUnit.getErrorCollector().getErrors().size());
+		MethodBodySplicer.Splice splice = splicer.splice(sourceUnit,
+				CONTENTS.replace("Missing missing = null", "String missing = null"));
+		Assertions.assertNotNull(splice);
+		List<? extends Message> errors = compilationUnit.getErrorCollector().getErrors();
+		Assertions.assertEquals(1, errors.size());
+		SyntaxErrorMessage error = (SyntaxErrorMessage) errors.get(0);
+		Assertions.assertTrue(error.getCause().getMessage().contains("Other"));
+	}
+
+	@Test
+	void testEditThatChangesLineCountIsNotSpliced() {
+		Assertions.assertNull(splicer.splice(sourceUnit, CONTENTS.replace("String text = 'a'", "String text =\n'a'")));
+	}
+
+	@Test
+	void testEditOutsideMethodBodyIsNotSpliced() {
+		Assertions.assertNull(splicer.splice(sourceUnit, CONTENTS.replace("int param", "long param")));
+	}
+
+	@Test
+	void testSyntaxErrorIsNotSpliced() {
+		Assertions.assertNull(splicer.splice(sourceUnit, CONTENTS.replace("String text = 'a'", "String text = .")));
+	}
+
+	@Test
+	void testEditInAnnotatedClassIsNotSpliced() {
+		URI uri = Paths.get("/workspace/Logged.groovy").toUri();
+		String contents = "import groovy.util.logging.Slf4j\n@Slf4j\nclass Logged {\n  void first() {\n"
+				+ "    String text = 'a'\n  }\n}";
+		GroovyLSCompilationUnit loggedUnit = new GroovyLSCompilationUnit(new CompilerConfiguration());
+		SourceUnit loggedSourceUnit = addSource(loggedUnit, uri, contents);
+		loggedUnit.compile(Phases.CANONICALIZATION);
+		MethodBodySplicer loggedSplicer = new MethodBodySplicer(loggedUnit);
+		Assertions.assertNull(loggedSplicer.splice(loggedSourceUnit, contents.replace("'a'", "'b'")));
+	}
+
+	@Test
+	void testEditWithGlobalTransformationIsNotSpliced() {
+		CompilerConfiguration config = new CompilerConfiguration();
+		config.addCompilationCustomizers(new ASTTransformationCustomizer(ToString.class));
+		GroovyLSCompilationUnit customizedUnit = new GroovyLSCompilationUnit(config);
+		SourceUnit customizedSourceUnit = addSource(customizedUnit, TEST_URI, CONTENTS);
+		customizedUnit.compile(Phases.CANONICALIZATION);
+		MethodBodySplicer customizedSplicer = new MethodBodySplicer(customizedUnit);
+		Assertions.assertNull(customizedSplicer.splice(customizedSourceUnit,
+				CONTENTS.replace("String text = 'a'", "String text = 'b'")));
+	}
+
+	@Test
+	void testVisitMethodCodeReplacesNodes() {
+		ASTNodeVisitor astVisitor = new ASTNodeVisitor();
+		astVisitor.visitCompilationUnit(compilationUnit);
+		String newContents = CONTENTS.replace("String text = 'a'", "TimeUnit unit = null");
+		MethodBodySplicer.Splice splice = splicer.splice(sourceUnit, newContents);
+		Assertions.assertTrue(astVisitor.visitMethodCode(sourceUnit, splice.getMethod(), splice.getOldCode()));
+		ASTNode node = astVisitor.getNodeAtLineAndColumn(TEST_URI, 3, 14);
+		Assertions.assertTrue(node instanceof VariableExpression);
+		Assertions.assertEquals("unit", ((VariableExpression) node).getName());
+		Assertions.assertTrue(astVisitor.contains(splice.getMethod().getCode(), node));
+
+		ASTNodeVisitor expectedVisitor = new ASTNodeVisitor();
+		expectedVisitor.visitCompilationUnit(compilationUnit);
+		Assertions.assertEquals(expectedVisitor.getNodes(TEST_URI), astVisitor.getNodes(TEST_URI));
+	}
+
+	private SourceUnit addSource(GroovyLSCompilationUnit unit, URI uri, String contents) {
+		CompilerConfiguration config = unit.getConfiguration();
+		SourceUnit result = new SourceUnit(Paths.get(uri).toString(),
+				new StringReaderSourceWithURI(contents, uri, config), config, unit.getClassLoader(),
+				unit.getErrorCollector());
+		unit.addSource(result);
+		return result;
+	}
+
+	private DeclarationExpression getDeclaration(Object statement) {
+		return (DeclarationExpression) ((ExpressionStatement) statement).getExpression();
+	}
+}
\ No newline at end of file
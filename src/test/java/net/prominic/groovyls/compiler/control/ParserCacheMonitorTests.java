@@ -0,0 +1,62 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ParserCacheMonitorTests {
+	private static final long IDLE_MS = 10 * 60 * 1000;
+
+	@Test
+	void testCachesAreClearedWhenIdle() {
+		ParserWarmup warmup = new ParserWarmup();
+		warmup.parseCorpus(warmup.loadCorpus());
+		AtomicInteger rewarmCount = new AtomicInteger();
+		ParserCacheMonitor monitor = new ParserCacheMonitor(rewarmCount::incrementAndGet);
+		int size = monitor.getStatistics().getSize();
+		Assertions.assertTrue(size > 0);
+
+		monitor.setMaxSize(size);
+		Assertions.assertFalse(monitor.checkCaches(System.currentTimeMillis() + IDLE_MS));
+
+		// over the maximum size, but less than twice the maximum size
+		monitor.setMaxSize(size - 1);
+		monitor.markActive();
+		Assertions.assertFalse(monitor.checkCaches(System.currentTimeMillis()));
+		Assertions.assertTrue(monitor.checkCaches(System.currentTimeMillis() + IDLE_MS));
+		Assertions.assertEquals(1, rewarmCount.get());
+		Assertions.assertEquals(1, monitor.getStatistics().getClearCount());
+		Assertions.assertTrue(monitor.getStatistics().getSize() < size);
+	}
+
+	@Test
+	void testNegativeMaxSizeNeverClears() {
+		ParserWarmup warmup = new ParserWarmup();
+		warmup.parseCorpus(warmup.loadCorpus());
+		ParserCacheMonitor monitor = new ParserCacheMonitor(() -> {
+		});
+		monitor.setMaxSize(-1);
+		Assertions.assertFalse(monitor.checkCaches(System.currentTimeMillis() + IDLE_MS));
+		Assertions.assertEquals(0, monitor.getStatistics().getClearCount());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.prominic.groovyls.compiler.control.io.StringReaderSourceWithURI;
+
+class SourceDependencyGraphTests {
+	private static final URI URI_A = Paths.get("/workspace/A.groovy").toUri();
+	private static final URI URI_B = Paths.get("/workspace/B.groovy").toUri();
+	private static final URI URI_C = Paths.get("/workspace/C.groovy").toUri();
+	private static final URI URI_D = Paths.get("/workspace/D.groovy").toUri();
+	private static final URI URI_E = Paths.get("/workspace/E.groovy").toUri();
+
+	private GroovyLSCompilationUnit compilationUnit;
+	private SourceDependencyGraph dependencyGraph;
+
+	@BeforeEach
+	void setup() {
+		compilationUnit = new GroovyLSCompilationUnit(new CompilerConfiguration());
+		dependencyGraph = new SourceDependencyGraph();
+		addSource(URI_A, "class A {\n  String name() { return 'a' }\n}");
+		addSource(URI_B, "class B extends A {}");
+		addSource(URI_C, "class C {\n  void test() {\n    B b = new B()\n  }\n}");
+		addSource(URI_D, "class D {}");
+		Set<URI> uris = new HashSet<>(Arrays.asList(URI_A, URI_B, URI_C, URI_D));
+		compilationUnit.compile(Phases.CONVERSION);
+		dependencyGraph.updateAPI(compilationUnit, uris);
+		compilationUnit.compile(Phases.CANONICALIZATION);
+		dependencyGraph.updateDependencies(compilationUnit, uris);
+	}
+
+	@AfterEach
+	void tearDown() {
+		compilationUnit = null;
+		dependencyGraph = null;
+	}
+
+	@Test
+	void testMethodBodyChangeAffectsNothing() {
+		replaceSource(URI_A, "class A {\n  String name() { return 'b' }\n}");
+		Assertions.assertEquals(Collections.emptySet(), dependencyGraph.updateAPI(compilationUnit,
+				Collections.singleton(URI_A)));
+	}
+
+	@Test
+	void testSignatureChangeAffectsDependentsAndSubtypeDependents() {
+		replaceSource(URI_A, "class A {\n  int name() { return 1 }\n}");
+		Set<URI> expected = new HashSet<>(Arrays.asList(URI_B, URI_C));
+		Assertions.assertEquals(expected, dependencyGraph.updateAPI(compilationUnit, Collections.singleton(URI_A)));
+	}
+
+	@Test
+	void testSignatureChangeAffectsTransitiveDependents() {
+		addSource(URI_E, "class E {\n  C c\n}");
+		compilationUnit.compile(Phases.CONVERSION);
+		dependencyGraph.updateAPI(compilationUnit, Collections.singleton(URI_E));
+		compilationUnit.compile(Phases.CANONICALIZATION);
+		dependencyGraph.updateDependencies(compilationUnit, Collections.singleton(URI_E));
+
+		replaceSource(URI_A, "class A {\n  int name() { return 1 }\n}");
+		Set<URI> expected = new HashSet<>(Arrays.asList(URI_B, URI_C, URI_E));
+		Assertions.assertEquals(expected, dependencyGraph.updateAPI(compilationUnit, Collections.singleton(URI_A)));
+	}
+
+	@Test
+	void testSignatureChangeWithoutDependents() {
+		replaceSource(URI_D, "class D {\n  int count\n}");
+		Assertions.assertEquals(Collections.emptySet(), dependencyGraph.updateAPI(compilationUnit,
+				Collections.singleton(URI_D)));
+	}
+
+	@Test
+	void testRemovedSourceAffectsDependents() {
+		removeSource(URI_B);
+		compilationUnit.compile(Phases.CONVERSION);
+		Assertions.assertEquals(Collections.singleton(URI_C), dependencyGraph.updateAPI(compilationUnit,
+				Collections.singleton(URI_B)));
+	}
+
+	private void replaceSource(URI uri, String contents) {
+		removeSource(uri);
+		addSource(uri, contents);
+		compilationUnit.compile(Phases.CONVERSION);
+	}
+
+	private void removeSource(URI uri) {
+		List<SourceUnit> sourceUnits = new ArrayList<>();
+		compilationUnit.iterator().forEachRemaining(sourceUnit -> {
+			if (uri.equals(sourceUnit.getSource().getURI())) {
+				sourceUnits.add(sourceUnit);
+			}
+		});
+		compilationUnit.removeSources(sourceUnits);
+	}
+
+	private void addSource(URI uri, String contents) {
+		CompilerConfiguration config = compilationUnit.getConfiguration();
+		SourceUnit sourceUnit = new SourceUnit(Paths.get(uri).toString(),
+				new StringReaderSourceWithURI(contents, uri, config), config, compilationUnit.getClassLoader(),
+				compilationUnit.getErrorCollector());
+		compilationUnit.addSource(sourceUnit);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.compiler.control;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.ParserPlugin;
+import org.codehaus.groovy.control.ParserPluginFactory;
+import org.codehaus.groovy.syntax.SyntaxException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import groovy.lang.GroovyClassLoader;
+
+class SyntaxCheckerTests {
+	private static final URI TEST_URI = URI.create("file:///Syntax.groovy");
+
+	private SyntaxChecker checker;
+	private Map<URI, String> contents;
+	private CompletableFuture<List<SyntaxException>> result;
+
+	@BeforeEach
+	void setup() {
+		contents = new HashMap<>();
+		result = new CompletableFuture<>();
+		checker = new SyntaxChecker(contents::get, (uri, errors) -> {
+			result.complete(errors);
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		checker.shutdown();
+		checker = null;
+		contents = null;
+		result = null;
+	}
+
+	@Test
+	void testSyntaxError() throws Exception {
+		contents.put(TEST_URI, "class Syntax {\n  void method() {\n    foo.\n  }\n}");
+		checker.check(TEST_URI);
+		List<SyntaxException> errors = result.get(10, TimeUnit.SECONDS);
+		Assertions.assertEquals(1, errors.size());
+		Assertions.assertEquals(3, errors.get(0).getStartLine());
+	}
+
+	@Test
+	void testUnresolvedClassIsNotSyntaxError() throws Exception {
+		contents.put(TEST_URI, "class Syntax extends DoesNotExist {\n}");
+		checker.check(TEST_URI);
+		List<SyntaxException> errors = result.get(10, TimeUnit.SECONDS);
+		Assertions.assertEquals(0, errors.size());
+	}
+
+	@Test
+	void testUsesCompilerConfiguration() throws Exception {
+		AtomicInteger parserCount = new AtomicInteger();
+		CompilerConfiguration config = new CompilerConfiguration();
+		config.setPluginFactory(new ParserPluginFactory() {
+			@Override
+			public ParserPlugin createParserPlugin() {
+				parserCount.incrementAndGet();
+				return ParserPluginFactory.antlr4().createParserPlugin();
+			}
+		});
+		checker.setCompilerConfiguration(config, new GroovyClassLoader());
+		contents.put(TEST_URI, "class Syntax {\n}");
+		checker.check(TEST_URI);
+		List<SyntaxException> errors = result.get(10, TimeUnit.SECONDS);
+		Assertions.assertEquals(0, errors.size());
+		Assertions.assertEquals(1, parserCount.get());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.groovyls.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.prominic.groovyls.compiler.control.GroovyLSCompilationUnit;
+import net.prominic.groovyls.util.FileContentsTracker;
+
+class CompilationUnitFactoryTests {
+	private static final String PATH_WORKSPACE = "./build/test_workspace_factory/";
+
+	private CompilationUnitFactory factory;
+	private FileContentsTracker fileContentsTracker;
+	private Path workspaceRoot;
+
+	@BeforeEach
+	void setup() throws IOException {
+		workspaceRoot = Paths.get(System.getProperty("user.dir")).resolve(PATH_WORKSPACE);
+		if (Files.exists(workspaceRoot)) {
+			for (File file : workspaceRoot.toFile().listFiles()) {
+				file.delete();
+			}
+		} else {
+			workspaceRoot.toFile().mkdirs();
+		}
+		factory = new CompilationUnitFactory();
+		fileContentsTracker = new FileContentsTracker();
+	}
+
+	@AfterEach
+	void tearDown() {
+		factory = null;
+		fileContentsTracker = null;
+		workspaceRoot = null;
+	}
+
+	@Test
+	void testCreatedFileIsAddedAfterUpdate() throws Exception {
+		Path filePath1 = workspaceRoot.resolve("One.groovy");
+		Files.write(filePath1, "class One {}".getBytes());
+		Assertions.assertEquals(Collections.singleton(filePath1.toUri()), getSourceURIs(create()));
+
+		Path filePath2 = workspaceRoot.resolve("Two.groovy");
+		Files.write(filePath2, "class Two {}".getBytes());
+		fileContentsTracker.forceChanged(filePath2.toUri());
+		// the directory isn't walked again
+		Assertions.assertEquals(Collections.singleton(filePath1.toUri()), getSourceURIs(create()));
+
+		factory.updateWorkspaceFiles(Collections.singleton(filePath2.toUri()));
+		fileContentsTracker.forceChanged(filePath2.toUri());
+		Set<URI> expected = new HashSet<>();
+		expected.add(filePath1.toUri());
+		expected.add(filePath2.toUri());
+		Assertions.assertEquals(expected, getSourceURIs(create()));
+	}
+
+	@Test
+	void testDeletedFileIsRemovedAfterUpdate() throws Exception {
+		Path filePath = workspaceRoot.resolve("One.groovy");
+		Files.write(filePath, "class One {}".getBytes());
+		Assertions.assertEquals(Collections.singleton(filePath.toUri()), getSourceURIs(create()));
+
+		Files.delete(filePath);
+		factory.updateWorkspaceFiles(Collections.singleton(filePath.toUri()));
+		fileContentsTracker.forceChanged(filePath.toUri());
+		Assertions.assertEquals(Collections.emptySet(), getSourceURIs(create()));
+	}
+
+	@Test
+	void testOptimizationOptionsCreateNewCompilationUnit() throws Exception {
+		Path filePath = workspaceRoot.resolve("One.groovy");
+		Files.write(filePath, "class One {}".getBytes());
+		GroovyLSCompilationUnit compilationUnit = create();
+		Map<String, Boolean> options = compilationUnit.getConfiguration().getOptimizationOptions();
+		Assertions.assertTrue(options.get(CompilerConfiguration.PARALLEL_PARSE));
+
+		factory.setOptimizationOptions(Collections.singletonMap(CompilerConfiguration.PARALLEL_PARSE, false));
+		GroovyLSCompilationUnit newCompilationUnit = create();
+		Assertions.assertNotSame(compilationUnit, newCompilationUnit);
+		Assertions.assertSame(compilationUnit.getClassLoader(), newCompilationUnit.getClassLoader());
+		options = newCompilationUnit.getConfiguration().getOptimizationOptions();
+		Assertions.assertFalse(options.get(CompilerConfiguration.PARALLEL_PARSE));
+		Assertions.assertTrue(options.get(CompilerConfiguration.GROOVYDOC));
+		Assertions.assertEquals(Collections.singleton(filePath.toUri()), getSourceURIs(newCompilationUnit));
+	}
+
+	@Test
+	void testResetCompilationUnitKeepsClassLoader() throws Exception {
+		Path filePath = workspaceRoot.resolve("One.groovy");
+		Files.write(filePath, "class One {}".getBytes());
+		GroovyLSCompilationUnit compilationUnit = create();
+
+		factory.resetCompilationUnit();
+		GroovyLSCompilationUnit newCompilationUnit = create();
+		Assertions.assertNotSame(compilationUnit, newCompilationUnit);
+		Assertions.assertSame(compilationUnit.getConfiguration(), newCompilationUnit.getConfiguration());
+		Assertions.assertSame(compilationUnit.getClassLoader(), newCompilationUnit.getClassLoader());
+		Assertions.assertEquals(Collections.singleton(filePath.toUri()), getSourceURIs(newCompilationUnit));
+
+		factory.invalidateCompilationUnit();
+		Assertions.assertNotSame(compilationUnit.getClassLoader(), create().getClassLoader());
+	}
+
+	private GroovyLSCompilationUnit create() {
+		GroovyLSCompilationUnit compilationUnit = factory.create(workspaceRoot, fileContentsTracker);
+		fileContentsTracker.resetChangedFiles();
+		// added sources are queued until the compilation unit is compiled
+		compilationUnit.compile(Phases.CONVERSION);
+		return compilationUnit;
+	}
+
+	private Set<URI> getSourceURIs(GroovyLSCompilationUnit compilationUnit) {
+		Set<URI> result = new HashSet<>();
+		compilationUnit.iterator().forEachRemaining(sourceUnit -> {
+			result.add(sourceUnit.getSource().getURI());
+		});
+		return result;
+	}
+}
\ No newline at end of file
@@ -20,6 +20,7 @@
 package net.prominic.groovyls.util;
 
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Collections;
 
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
@@ -100,4 +101,28 @@ class FileContentsTrackerTests {
 		tracker.didChange(changeParams);
 		Assertions.assertEquals("hello\nwaffles", tracker.getContents(URI.create("file.txt")));
 	}
+
+	@Test
+	void testDidChangeWithMultipleRanges() {
+		DidOpenTextDocumentParams openParams = new DidOpenTextDocumentParams();
+		openParams.setTextDocument(new TextDocumentItem("file.txt", "plaintext", 1, "hello\nworld"));
+		tracker.didOpen(openParams);
+		DidChangeTextDocumentParams changeParams = new DidChangeTextDocumentParams();
+		changeParams.setTextDocument(new VersionedTextDocumentIdentifier("file.txt", 2));
+		TextDocumentContentChangeEvent changeEvent1 = new TextDocumentContentChangeEvent();
+		changeEvent1.setText("y");
+		changeEvent1.setRange(new Range(new Position(0, 0), new Position(0, 1)));
+		changeEvent1.setRangeLength(1);
+		TextDocumentContentChangeEvent changeEvent2 = new TextDocumentContentChangeEvent();
+		changeEvent2.setText("\nwide\n");
+		changeEvent2.setRange(new Range(new Position(0, 5), new Position(1, 0)));
+		changeEvent2.setRangeLength(1);
+		TextDocumentContentChangeEvent changeEvent3 = new TextDocumentContentChangeEvent();
+		changeEvent3.setText("!");
+		changeEvent3.setRange(new Range(new Position(2, 5), new Position(2, 5)));
+		changeEvent3.setRangeLength(0);
+		changeParams.setContentChanges(Arrays.asList(changeEvent1, changeEvent2, changeEvent3));
+		tracker.didChange(changeParams);
+		Assertions.assertEquals("yello\nwide\nworld!", tracker.getContents(URI.create("file.txt")));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2022 Prominic.NET, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Prominic.NET, Inc.
+// No warranty of merchantability or fitness of any kind.
+// Use this software at your own risk.
+////////////////////////////////////////////////////////////////////////////////
+package net.prominic.lsp.utils;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LineOffsetsTests {
+	@Test
+	void testGetOffset() {
+		LineOffsets lineOffsets = new LineOffsets("hello\nwide\n\nworld");
+		Assertions.assertEquals(4, lineOffsets.getLineCount());
+		Assertions.assertEquals(3, lineOffsets.getOffset(new Position(0, 3)));
+		Assertions.assertEquals(6, lineOffsets.getOffset(new Position(1, 0)));
+		Assertions.assertEquals(11, lineOffsets.getOffset(new Position(2, 0)));
+		Assertions.assertEquals(14, lineOffsets.getOffset(new Position(3, 2)));
+	}
+
+	@Test
+	void testGetOffsetForMissingLine() {
+		LineOffsets lineOffsets = new LineOffsets("hello\nworld");
+		Assertions.assertEquals(-1, lineOffsets.getOffset(new Position(2, 0)));
+	}
+
+	@Test
+	void testGetPosition() {
+		LineOffsets lineOffsets = new LineOffsets("hello\nwide\n\nworld");
+		Assertions.assertEquals(new Position(0, 0), lineOffsets.getPosition(0));
+		Assertions.assertEquals(new Position(0, 5), lineOffsets.getPosition(5));
+		Assertions.assertEquals(new Position(1, 0), lineOffsets.getPosition(6));
+		Assertions.assertEquals(new Position(2, 0), lineOffsets.getPosition(11));
+		Assertions.assertEquals(new Position(3, 5), lineOffsets.getPosition(17));
+	}
+
+	@Test
+	void testGetSubstring() {
+		LineOffsets lineOffsets = new LineOffsets("hello\nwide\nworld");
+		Assertions.assertEquals("llo\nwi", lineOffsets.getSubstring(new Range(new Position(0, 2), new Position(1, 2))));
+	}
+
+	@Test
+	void testGetSubstringWithMaxLines() {
+		LineOffsets lineOffsets = new LineOffsets("hello\nwide\nworld");
+		Range range = new Range(new Position(0, 2), new Position(2, 2));
+		Assertions.assertEquals("llo\n", lineOffsets.getSubstring(range, 2));
+		Assertions.assertEquals("", lineOffsets.getSubstring(range, 1));
+	}
+}
\ No newline at end of file
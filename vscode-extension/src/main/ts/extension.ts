@@ -45,6 +45,12 @@ function onDidChangeConfiguration(event: vscode.ConfigurationChangeEvent) {
     //we're going to try to kill the language server and then restart
     //it with the new settings
     restartLanguageServer();
+  } else if (
+    event.affectsConfiguration("groovy.parser.sllThreshold") ||
+    event.affectsConfiguration("groovy.parser.warmup")
+  ) {
+    //the parser is configured only when the language server starts
+    restartLanguageServer();
   }
 }
 
@@ -114,8 +120,15 @@ function startLanguageServer() {
           return;
         }
         progress.report({ message: INITIALIZING_MESSAGE });
+        let parserConfig = vscode.workspace.getConfiguration("groovy.parser");
         let clientOptions: LanguageClientOptions = {
           documentSelector: [{ scheme: "file", language: "groovy" }],
+          initializationOptions: {
+            parser: {
+              sllThreshold: parserConfig.get("sllThreshold"),
+              warmup: parserConfig.get("warmup"),
+            },
+          },
           synchronize: {
             configurationSection: "groovy",
           },